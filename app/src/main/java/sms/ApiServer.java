@@ -0,0 +1,349 @@
+package sms;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Embedded HTTP/JSON front end for the services, for scripting and load tests.
+//
+//   GET  /students?offset=0&limit=100     GET  /courses
+//   GET  /students?q=smith&limit=100
+//   GET  /students?where=major+%3D+Physics+and+not+enrolled+CS101&offset=0&limit=100&explain=true
+//   POST /students {id,name,email,major}  GET  /courses/{code}/roster
+//   GET  /students/{id}                   GET  /courses/{code}/grades
+//   PUT  /students/{id} {name,email,major} PUT /courses/{code}/grades {studentId: grade}
+//   GET  /students/{id}/grades            POST /enrollments {studentId,courseCode}
+//   PUT  /students/{id}/grades {course: grade}
+//   GET  /courses/{code}/seats            DELETE /enrollments/{studentId}/{courseCode}
+//   GET  /enrollments?all=A,B&any=C,D&none=E&offset=0&limit=100
+//   GET  /stats
+//
+// where takes a StudentQuery; explain=true adds the plan it ran with (see
+// StudentQueryEngine.Result.explain).
+// POST /enrollments answers 201 with a seat, 202 when the student was waitlisted.
+// A replica (Backend.replica) answers only GETs; in a partitioned cluster each node
+// serves its own students, and ClusterRouter offers this API over all of them.
+//
+// Requests run on a fixed worker pool; the model's own locking makes them safe to
+// run concurrently. Each route's latency is recorded as api.<method>.<resource>...
+// (see Metrics).
+public class ApiServer {
+    static final int MAX_PAGE = 1_000;
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "DELETE");
+    private static final Set<String> RESOURCES = Set.of("students", "courses", "enrollments", "stats");
+    private static final Set<String> SUB_RESOURCES = Set.of("grades", "seats", "roster");
+    
+    static {
+        // Small JSON responses otherwise sit out Nagle/delayed-ACK (~40 ms per request)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    private final Backend backend;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    
+    private record Response(int status, String body) {}
+    
+    public ApiServer(Backend backend, int port) throws IOException {
+        this(backend, port, Math.max(8, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+    
+    public ApiServer(Backend backend, int port, int threads) throws IOException {
+        this.backend = backend;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "api-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        long start = System.nanoTime();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        Response response;
+        try {
+            response = route(exchange.getRequestMethod(), path, exchange);
+        } catch (NoSuchElementException e) {
+            response = error(404, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            response = error(500, String.valueOf(e));
+        }
+        if (response.status() >= 400) {
+            failures.increment();
+        }
+        
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        Metrics.histogram(routeName(exchange.getRequestMethod(), path)).recordSince(start);
+    }
+    
+    // api.<method>.<resource>[.id][.<sub-resource>]; anything unknown maps to a fixed
+    // name, so clients cannot create histograms at will
+    static String routeName(String method, String[] path) {
+        String resource = path.length > 1 ? path[1] : "";
+        if (!RESOURCES.contains(resource) || !METHODS.contains(method)) {
+            return "api.other";
+        }
+        StringBuilder name = new StringBuilder("api.").append(method).append('.').append(resource);
+        if (path.length > 2) {
+            name.append(".id");
+        }
+        if (path.length > 3) {
+            name.append(SUB_RESOURCES.contains(path[3]) ? "." + path[3] : ".id");
+        }
+        return name.toString();
+    }
+    
+    // path[0] is the empty string before the leading slash
+    private Response route(String method, String[] path, HttpExchange exchange) throws IOException {
+        String resource = path.length > 1 ? path[1] : "";
+        String id = path.length > 2 ? path[2] : null;
+        String sub = path.length > 3 ? path[3] : null;
+        StudentService studentService = backend.getStudentService();
+        EnrollmentService enrollmentService = backend.getEnrollmentService();
+        GradeService gradeService = backend.getGradeService();
+        if (backend.isReadOnly() && !method.equals("GET")) {
+            return error(405, "This node is a read-only replica; send " + method + " requests to its primary");
+        }
+        IOException persistenceFailure = backend.getPersistenceFailure();
+        if (persistenceFailure != null && !method.equals("GET")) {
+            return error(503, "Changes can no longer be saved: " + persistenceFailure.getMessage());
+        }
+        
+        switch (resource) {
+            case "students" -> {
+                if (id == null && method.equals("GET")) {
+                    Map<String, String> query = query(exchange);
+                    int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+                    int limit = Math.min(MAX_PAGE, Integer.parseInt(query.getOrDefault("limit", "100")));
+                    String search = query.get("q");
+                    String where = query.get("where");
+                    StudentQueryEngine.Result result = where == null ? null : backend.getQueryEngine().run(where);
+                    List<Student> page = result != null ? result.getStudents(offset, limit)
+                        : search == null ? studentService.listStudents(offset, limit) : studentService.search(search, limit);
+                    StringBuilder out = new StringBuilder("{\"total\":")
+                        .append(result != null ? result.size() : search == null ? studentService.countStudents() : page.size())
+                        .append(",\"students\":[");
+                    for (int i = 0; i < page.size(); i++) {
+                        if (i > 0) out.append(',');
+                        student(out, page.get(i));
+                    }
+                    out.append(']');
+                    if (result != null && Boolean.parseBoolean(query.get("explain"))) {
+                        Json.string(out.append(",\"plan\":"), result.explain());
+                    }
+                    return ok(out.append('}'));
+                }
+                if (id == null && method.equals("POST")) {
+                    Map<String, String> body = body(exchange);
+                    Student student = studentService.addStudent(
+                        body.get("id"), body.get("name"), body.get("email"), body.get("major"));
+                    return new Response(201, student(new StringBuilder(), student).toString());
+                }
+                if (id != null && sub == null && method.equals("GET")) {
+                    return ok(student(new StringBuilder(), studentService.getStudent(id)));
+                }
+                if (id != null && sub == null && method.equals("PUT")) {
+                    Map<String, String> body = body(exchange);
+                    Student student = studentService.updateStudent(id, body.get("name"), body.get("email"), body.get("major"));
+                    return ok(student(new StringBuilder(), student));
+                }
+                if ("grades".equals(sub) && method.equals("GET")) {
+                    StringBuilder out = new StringBuilder("{\"grades\":");
+                    Json.stringMap(out, gradeService.getGrades(id)).append(",\"gpa\":");
+                    return ok(Json.number(out, gradeService.getGpa(id)).append('}'));
+                }
+                if ("grades".equals(sub) && method.equals("PUT")) {
+                    gradeService.updateGrades(id, body(exchange));
+                    return ok(Json.stringMap(new StringBuilder("{\"grades\":"), gradeService.getGrades(id)).append('}'));
+                }
+            }
+            case "courses" -> {
+                if (id == null && method.equals("GET")) {
+                    StringBuilder out = new StringBuilder("[");
+                    List<Course> courses = enrollmentService.listCourses();
+                    for (int i = 0; i < courses.size(); i++) {
+                        if (i > 0) out.append(',');
+                        Json.string(out.append("{\"code\":"), courses.get(i).getCode()).append(",\"name\":");
+                        Json.string(out, courses.get(i).getName()).append(",\"capacity\":");
+                        int capacity = courses.get(i).getCapacity();
+                        out.append(capacity == Course.UNLIMITED ? "null" : Integer.toString(capacity)).append('}');
+                    }
+                    return ok(out.append(']'));
+                }
+                if ("seats".equals(sub) && method.equals("GET")) {
+                    EnrollmentEngine.Seats seats = enrollmentService.getSeats(id);
+                    StringBuilder out = new StringBuilder("{\"capacity\":");
+                    if (seats.capacity() == Course.UNLIMITED) {
+                        out.append("null");
+                    } else {
+                        out.append(seats.capacity());
+                    }
+                    return ok(out.append(",\"taken\":").append(seats.taken())
+                        .append(",\"waitlisted\":").append(seats.waitlisted()).append('}'));
+                }
+                if ("roster".equals(sub) && method.equals("GET")) {
+                    List<String> ids = new ArrayList<>();
+                    for (Student student : enrollmentService.getRoster(id)) {
+                        ids.add(student.getId());
+                    }
+                    return ok(Json.strings(new StringBuilder(), ids));
+                }
+                if ("grades".equals(sub) && method.equals("GET")) {
+                    enrollmentService.getCourse(id);
+                    GradeAnalytics.CourseSummary summary = gradeService.getCourseSummary(id);
+                    StringBuilder out = new StringBuilder("{\"course\":");
+                    Json.string(out, id).append(",\"graded\":").append(summary.graded()).append(",\"average\":");
+                    Json.number(out, summary.average()).append(",\"distribution\":{");
+                    boolean first = true;
+                    for (Map.Entry<String, Integer> entry : summary.distribution().entrySet()) {
+                        if (!first) out.append(',');
+                        Json.string(out, entry.getKey()).append(':').append(entry.getValue());
+                        first = false;
+                    }
+                    return ok(out.append("}}"));
+                }
+                if ("grades".equals(sub) && method.equals("PUT")) {
+                    int updated = gradeService.updateCourseGrades(enrollmentService.getCourse(id).getCode(), body(exchange));
+                    return ok(new StringBuilder("{\"updated\":").append(updated).append('}'));
+                }
+            }
+            case "enrollments" -> {
+                if (id == null && method.equals("POST")) {
+                    Map<String, String> body = body(exchange);
+                    String studentId = body.get("studentId");
+                    String courseCode = body.get("courseCode");
+                    EnrollmentEngine.Outcome outcome = enrollmentService.enroll(studentId, courseCode);
+                    int status = switch (outcome) {
+                        case ENROLLED -> 201;
+                        case WAITLISTED -> 202;
+                        default -> 200;
+                    };
+                    StringBuilder out = new StringBuilder("{\"status\":");
+                    Json.string(out, outcome.name()).append(",\"enrolled\":")
+                        .append(outcome == EnrollmentEngine.Outcome.ENROLLED || outcome == EnrollmentEngine.Outcome.ALREADY_ENROLLED);
+                    if (outcome == EnrollmentEngine.Outcome.WAITLISTED || outcome == EnrollmentEngine.Outcome.ALREADY_WAITLISTED) {
+                        out.append(",\"waitlistPosition\":").append(enrollmentService.getWaitlistPosition(studentId, courseCode));
+                    }
+                    return new Response(status, out.append('}').toString());
+                }
+                // Students in every course of all, at least one of any and none of none
+                if (id == null && method.equals("GET")) {
+                    Map<String, String> query = query(exchange);
+                    int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+                    int limit = Math.min(MAX_PAGE, Integer.parseInt(query.getOrDefault("limit", "100")));
+                    EnrollmentService.Matches matches = enrollmentService.findStudents(
+                        codes(query.get("all")), codes(query.get("any")), codes(query.get("none")), offset, limit);
+                    StringBuilder out = new StringBuilder("{\"total\":").append(matches.total()).append(",\"students\":[");
+                    for (int i = 0; i < matches.students().size(); i++) {
+                        if (i > 0) out.append(',');
+                        student(out, matches.students().get(i));
+                    }
+                    return ok(out.append("]}"));
+                }
+                // DELETE /enrollments/{studentId}/{courseCode}
+                if (id != null && sub != null && method.equals("DELETE")) {
+                    if (!enrollmentService.drop(id, sub)) {
+                        return error(404, id + " is not enrolled in or waitlisted for " + sub);
+                    }
+                    return ok("{\"dropped\":true}");
+                }
+            }
+            case "stats" -> {
+                if (method.equals("GET")) {
+                    double seconds = (System.nanoTime() - startNanos) / 1e9;
+                    long total = requests.sum();
+                    StringBuilder out = new StringBuilder("{\"requests\":").append(total)
+                        .append(",\"failures\":").append(failures.sum())
+                        .append(",\"uptimeSeconds\":").append((long) seconds)
+                        .append(",\"requestsPerSecond\":");
+                    return ok(Json.number(out, total / seconds).append('}'));
+                }
+            }
+            default -> {
+                return error(404, "No such resource: " + resource);
+            }
+        }
+        return error(405, "Method " + method + " not supported here");
+    }
+    
+    private static StringBuilder student(StringBuilder out, Student student) {
+        Student.State state = student.getState();
+        Json.string(out.append("{\"id\":"), student.getId());
+        Json.string(out.append(",\"name\":"), state.name());
+        Json.string(out.append(",\"email\":"), state.email());
+        Json.string(out.append(",\"major\":"), state.major());
+        Json.strings(out.append(",\"enrolledCourses\":"), new TreeSet<>(state.enrolledCourses()));
+        Json.stringMap(out.append(",\"grades\":"), state.grades());
+        return out.append('}');
+    }
+    
+    private static Map<String, String> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+    
+    static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+    
+    // Comma-separated course codes of a query parameter
+    private static List<String> codes(String value) {
+        return value == null || value.isEmpty() ? List.of() : List.of(value.split(","));
+    }
+    
+    private static Response ok(CharSequence body) {
+        return new Response(200, body.toString());
+    }
+    
+    private static Response error(int status, String message) {
+        return new Response(status, Json.string(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+}
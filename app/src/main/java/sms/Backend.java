@@ -0,0 +1,151 @@
+package sms;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// The model and its services without any UI: what both the Swing client and the
+// HTTP API work against. In a cluster a backend holds one partition of the students
+// (and every course), or is a read-only replica fed by ReplicaClient.
+public class Backend {
+    private static final int DETAIL_CACHE_CAPACITY = 1_000;
+    
+    private final CourseCatalog courses = new CourseCatalog();
+    private final StudentRepository students = new StudentRepository(courses);
+    private final PersistenceEngine persistence;
+    private final Partition partition;
+    private final boolean readOnly;
+    private StudentService studentService;
+    private EnrollmentService enrollmentService;
+    private GradeService gradeService;
+    private GradeAnalytics analytics;
+    private StudentSearchIndex searchIndex;
+    private EnrollmentEngine enrollmentEngine;
+    private StudentDetailCache detailCache;
+    private StudentQueryEngine queryEngine;
+    
+    private Backend(PersistenceEngine persistence, Partition partition, boolean readOnly) {
+        this.persistence = persistence;
+        this.partition = partition;
+        this.readOnly = readOnly;
+    }
+    
+    // Recovers the saved state from dataDirectory, creating sample data on first start
+    public static Backend open(Path dataDirectory) throws IOException {
+        return open(dataDirectory, null);
+    }
+    
+    // As open, for the students of one partition (null for all)
+    public static Backend open(Path dataDirectory, Partition partition) throws IOException {
+        return open(dataDirectory, partition, null);
+    }
+    
+    // As open, starting an empty data directory with the given synthetic dataset (if not
+    // null) instead of the sample data. The generated model is checkpointed straight
+    // away, so later starts recover it from the snapshot instead of generating it again.
+    public static Backend open(Path dataDirectory, Partition partition, SyntheticDataset dataset) throws IOException {
+        Backend backend = new Backend(new PersistenceEngine(dataDirectory), partition, false);
+        if (!backend.persistence.recover(backend.courses, backend.students)) {
+            if (dataset != null) {
+                dataset.generate(backend.courses, backend.students, partition);
+            } else {
+                backend.initializeSampleData();
+            }
+            backend.persistence.checkpoint();
+        } else if (dataset != null) {
+            System.err.println("Kept the data in " + dataDirectory + "; the synthetic dataset " + dataset
+                + " is only generated into an empty data directory");
+        }
+        backend.persistence.start();
+        backend.createServices();
+        return backend;
+    }
+    
+    // Empty model that is not persisted
+    public static Backend inMemory() {
+        Backend backend = new Backend(null, null, false);
+        backend.createServices();
+        return backend;
+    }
+    
+    // Empty model for a replica; only replication changes it, and the HTTP API refuses writes
+    public static Backend replica() {
+        Backend backend = new Backend(null, null, true);
+        backend.createServices();
+        return backend;
+    }
+    
+    private void createServices() {
+        analytics = new GradeAnalytics(students);
+        searchIndex = new StudentSearchIndex(students);
+        studentService = new StudentService(students, searchIndex, partition);
+        enrollmentEngine = new EnrollmentEngine(students, courses);
+        enrollmentService = new EnrollmentService(students, courses, enrollmentEngine);
+        gradeService = new GradeService(students, analytics);
+        detailCache = new StudentDetailCache(students, DETAIL_CACHE_CAPACITY);
+        queryEngine = new StudentQueryEngine(students, courses, searchIndex);
+    }
+    
+    public CourseCatalog getCourses() { return courses; }
+    public StudentRepository getStudents() { return students; }
+    public GradeAnalytics getAnalytics() { return analytics; }
+    public EnrollmentEngine getEnrollmentEngine() { return enrollmentEngine; }
+    public StudentSearchIndex getSearchIndex() { return searchIndex; }
+    public StudentService getStudentService() { return studentService; }
+    public EnrollmentService getEnrollmentService() { return enrollmentService; }
+    public GradeService getGradeService() { return gradeService; }
+    public StudentDetailCache getDetailCache() { return detailCache; }
+    public StudentQueryEngine getQueryEngine() { return queryEngine; }
+    public Partition getPartition() { return partition; }
+    public boolean isReadOnly() { return readOnly; }
+    
+    // Saves a snapshot; needed after course changes, which are not logged
+    public void checkpoint() {
+        if (persistence != null) {
+            persistence.checkpoint();
+        }
+    }
+    
+    // Why changes stopped being saved, or null if they are saved (or never were: in memory)
+    public IOException getPersistenceFailure() {
+        return persistence == null ? null : persistence.getFailure();
+    }
+    
+    public void close() {
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+    
+    private void initializeSampleData() {
+        courses.add(new Course("CS101", "Introduction to Programming"));
+        courses.add(new Course("MATH201", "Calculus I"));
+        courses.add(new Course("ENG101", "English Composition"));
+        
+        // Automatically generate 5 students
+        for (int i = 1; i <= 5; i++) {
+            String id = String.format("S%03d", i);
+            String name = "Student " + i;
+            String email = "student" + i + "@email.com";
+            String major = switch (i) {
+                case 1 -> "Computer Science";
+                case 2 -> "Mathematics";
+                case 3 -> "Physics";
+                case 4 -> "Chemistry";
+                default -> "Biology";
+            };
+            if (partition == null || partition.owns(id)) {
+                students.add(new Student(id, name, email, major));
+            }
+        }
+        
+        for (Student student : students.getAll()) {
+            // Example: enroll each student in the first two courses
+            if (!courses.isEmpty()) {
+                student.enrollInCourse(courses.get(0).getCode());
+                if (courses.size() > 1) {
+                    student.enrollInCourse(courses.get(1).getCode());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package sms;
+
+import java.awt.Component;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+// Runs model queries and mutations off the EDT and hands results back to it.
+// Starting a task under a key cancels the previous task with that key, so only
+// the latest combo-box selection wins; tasks started with perform are never
+// cancelled. The busy indicator shows while any task runs.
+//
+// Each task is timed from the call to the moment its result is back on the EDT,
+// before onSuccess runs (which may open a dialog), as ui.<panel>.<key or action>.
+// Superseded tasks are not recorded.
+public class BackgroundTasks {
+    private final Component owner;
+    private final String panel;
+    private final Map<String, LatencyHistogram> timers = new HashMap<>();
+    private final JProgressBar busyIndicator = new JProgressBar();
+    private final Map<String, SwingWorker<?, ?>> running = new HashMap<>();
+    private int busyCount;
+    
+    public BackgroundTasks(Component owner, String panel) {
+        this.owner = owner;
+        this.panel = panel;
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setVisible(false);
+    }
+    
+    public JProgressBar getBusyIndicator() {
+        return busyIndicator;
+    }
+    
+    // Call on the EDT; onSuccess also runs on the EDT, and is skipped if the task was superseded
+    public <T> void run(String key, Callable<T> work, Consumer<T> onSuccess) {
+        run(key, work, onSuccess, error -> JOptionPane.showMessageDialog(owner, 
+            error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+    
+    public <T> void run(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        SwingWorker<?, ?> previous = running.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        start(key, key, work, onSuccess, onFailure);
+    }
+    
+    // For user actions such as saving, which must not be cancelled by a later one
+    public <T> void perform(String action, Callable<T> work, Consumer<T> onSuccess) {
+        start(null, action, work, onSuccess, error -> JOptionPane.showMessageDialog(owner, 
+            error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+    }
+    
+    private <T> void start(String key, String action, Callable<T> work, Consumer<T> onSuccess, 
+            Consumer<Throwable> onFailure) {
+        LatencyHistogram timer = timers.computeIfAbsent(action, a -> Metrics.histogram("ui." + panel + "." + a));
+        long startNanos = System.nanoTime();
+        SwingWorker<T, Void> worker = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return work.call();
+            }
+            
+            @Override
+            protected void done() {
+                running.remove(key, this);
+                setBusy(-1);
+                if (isCancelled()) return;
+                
+                timer.recordSince(startNanos);
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException e) {
+                    onFailure.accept(e.getCause());
+                } catch (InterruptedException | CancellationException e) {
+                    // Superseded by a newer task
+                }
+            }
+        };
+        if (key != null) {
+            running.put(key, worker);
+        }
+        setBusy(1);
+        worker.execute();
+    }
+    
+    private void setBusy(int delta) {
+        busyCount += delta;
+        busyIndicator.setVisible(busyCount > 0);
+    }
+}
@@ -0,0 +1,272 @@
+package sms;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Binary records for model changes, shared by the write-ahead log (PersistenceEngine)
+// and replication (ReplicationServer, ReplicaClient). A record is a type byte, a key
+// (the student ID, or the course code for course-wide records) and a type-specific
+// body. The Encoder turns repository events into records on the mutating thread under
+// the write lock, so records come out in commit order and capture the state at the
+// time of the change; apply replays one against a model.
+final class ChangeLog {
+    static final byte ADD_STUDENT = 1;
+    static final byte UPDATE_PROFILE = 2;
+    static final byte ENROLL = 3;
+    static final byte SET_GRADES = 4;
+    static final byte UPDATE_GRADES = 5;
+    static final byte COURSE_GRADES = 6;
+    static final byte DROP = 7;
+    // Course changes are not repository events; only replication sends these
+    static final byte ADD_COURSE = 8;
+    // Key is empty: the record holds enrollments and grade changes for many students
+    static final byte ENROLL_ALL = 9;
+    
+    private ChangeLog() {}
+    
+    static class Encoder implements StudentRepositoryListener {
+        private final Consumer<byte[]> sink;
+        
+        Encoder(Consumer<byte[]> sink) {
+            this.sink = sink;
+        }
+        
+        @Override
+        public void studentAdded(Student student) {
+            sink.accept(encode(ADD_STUDENT, student.getId(), out -> writeState(out, student.getState())));
+        }
+        
+        @Override
+        public void studentUpdated(Student student) {
+            sink.accept(encode(UPDATE_PROFILE, student.getId(), out -> {
+                Student.State state = student.getState();
+                writeString(out, state.name());
+                writeString(out, state.email());
+                writeString(out, state.major());
+            }));
+        }
+        
+        @Override
+        public void studentEnrolled(Student student, String courseCode) {
+            sink.accept(encode(ENROLL, student.getId(), out -> writeString(out, courseCode)));
+        }
+        
+        @Override
+        public void studentDropped(Student student, String courseCode) {
+            sink.accept(encode(DROP, student.getId(), out -> writeString(out, courseCode)));
+        }
+        
+        @Override
+        public void gradesChanged(Student student) {
+            sink.accept(encode(SET_GRADES, student.getId(), out -> writeGrades(out, student.getGrades())));
+        }
+        
+        // Only the changed pairs are recorded, so a save costs as much as the edit
+        @Override
+        public void gradesUpdated(Student student, Map<String, String> changes) {
+            sink.accept(encode(UPDATE_GRADES, student.getId(), out -> writeGrades(out, changes)));
+        }
+        
+        // A section grading transaction is one record, so replay applies all of it or none
+        @Override
+        public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+            sink.accept(encode(COURSE_GRADES, courseCode, out -> {
+                out.writeInt(grades.size());
+                for (Map.Entry<Student, String> entry : grades.entrySet()) {
+                    writeText(out, entry.getKey().getId());
+                    writeText(out, entry.getValue());
+                }
+            }));
+        }
+        
+        // Likewise one record per import chunk
+        @Override
+        public void enrollmentsImported(Map<Student, List<String>> enrolled, Map<Student, Map<String, String>> grades) {
+            sink.accept(encode(ENROLL_ALL, "", out -> {
+                out.writeInt(enrolled.size());
+                for (Map.Entry<Student, List<String>> entry : enrolled.entrySet()) {
+                    writeText(out, entry.getKey().getId());
+                    out.writeInt(entry.getValue().size());
+                    for (String courseCode : entry.getValue()) {
+                        writeText(out, courseCode);
+                    }
+                }
+                out.writeInt(grades.size());
+                for (Map.Entry<Student, Map<String, String>> entry : grades.entrySet()) {
+                    writeText(out, entry.getKey().getId());
+                    writeGrades(out, entry.getValue());
+                }
+            }));
+        }
+    }
+    
+    interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    static byte[] encode(byte type, String key, RecordBody body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            writeText(out, key);
+            body.write(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // A student as it is in the given state, e.g. one read from a ModelSnapshot
+    static byte[] addStudent(Student student, Student.State state) {
+        return encode(ADD_STUDENT, student.getId(), out -> writeState(out, state));
+    }
+    
+    static byte[] addCourse(Course course) {
+        return encode(ADD_COURSE, course.getCode(), out -> {
+            writeText(out, course.getName());
+            out.writeInt(course.getCapacity());
+        });
+    }
+    
+    static void apply(byte[] record, CourseCatalog courses, StudentRepository students) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        String id = readText(in);
+        if (type == ADD_STUDENT) {
+            students.add(readStudent(in, id));
+            return;
+        }
+        if (type == ADD_COURSE) {
+            if (courses.findByCode(id) == null) {
+                courses.add(new Course(id, readText(in), in.readInt()));
+            }
+            return;
+        }
+        if (type == COURSE_GRADES) {
+            int count = in.readInt();
+            Map<String, String> grades = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String studentId = readText(in);
+                if (students.contains(studentId)) {
+                    grades.put(studentId, readText(in));
+                } else {
+                    readText(in);
+                }
+            }
+            students.updateCourseGrades(id, grades);
+            return;
+        }
+        if (type == ENROLL_ALL) {
+            Map<Student, List<String>> enrollments = new LinkedHashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Student student = students.findById(readText(in));
+                int courseCount = in.readInt();
+                List<String> courseCodes = new ArrayList<>(courseCount);
+                for (int j = 0; j < courseCount; j++) {
+                    courseCodes.add(readText(in));
+                }
+                if (student != null) {
+                    enrollments.put(student, courseCodes);
+                }
+            }
+            Map<Student, Map<String, String>> grades = new LinkedHashMap<>();
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Student student = students.findById(readText(in));
+                Map<String, String> changes = readGrades(in);
+                if (student != null) {
+                    grades.put(student, changes);
+                }
+            }
+            students.enrollAll(enrollments, grades);
+            return;
+        }
+        
+        Student student = students.findById(id);
+        if (student == null) return;
+        switch (type) {
+            // One state change, so readers never see a half-applied profile
+            case UPDATE_PROFILE -> student.updateProfile(readString(in), readString(in), readString(in));
+            case ENROLL -> student.enrollInCourse(readString(in));
+            case DROP -> student.dropCourse(readString(in));
+            case SET_GRADES -> student.setGrades(readGrades(in));
+            case UPDATE_GRADES -> student.updateGrades(readGrades(in));
+            default -> throw new IOException("Unknown change record type " + type);
+        }
+    }
+    
+    private static void writeState(DataOutputStream out, Student.State state) throws IOException {
+        writeString(out, state.name());
+        writeString(out, state.email());
+        writeString(out, state.major());
+        out.writeInt(state.enrolledCourses().size());
+        for (String courseCode : state.enrolledCourses()) {
+            writeText(out, courseCode);
+        }
+        writeGrades(out, state.grades());
+    }
+    
+    private static Student readStudent(DataInputStream in, String id) throws IOException {
+        String name = readString(in);
+        String email = readString(in);
+        String major = readString(in);
+        int enrolled = in.readInt();
+        Set<String> courseCodes = new HashSet<>();
+        for (int i = 0; i < enrolled; i++) {
+            courseCodes.add(readText(in));
+        }
+        return new Student(id, name, email, major, courseCodes, readGrades(in));
+    }
+    
+    private static void writeGrades(DataOutputStream out, Map<String, String> grades) throws IOException {
+        out.writeInt(grades.size());
+        for (Map.Entry<String, String> entry : grades.entrySet()) {
+            writeText(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+    
+    private static Map<String, String> readGrades(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, String> grades = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            grades.put(readText(in), readString(in));
+        }
+        return grades;
+    }
+    
+    // Strings are length-prefixed UTF-8. DataOutput.writeUTF stops at 64 KB, and the
+    // encoder runs after the change is applied, so a record it cannot write would leave
+    // the log and every later listener behind the model.
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException("String runs past the end of the record");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Nullable string fields
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeText(out, value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readText(in) : null;
+    }
+}
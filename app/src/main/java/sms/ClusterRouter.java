@@ -0,0 +1,435 @@
+package sms;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// HTTP front end for a partitioned cluster, serving the ApiServer routes over every
+// partition. A partition is a primary node (--partition i/n) plus any number of read
+// replicas following it (--replica-of). Requests about one student go to the partition
+// owning its ID (Partition.of): writes to the primary, reads round-robin over the
+// replicas, or the primary if there are none. Course-wide and query routes are sent
+// to every partition in parallel and the answers merged: lists by student ID, counts
+// and grade distributions summed.
+//
+// Caveats of the partitioned model: replica reads may trail the primary slightly; a
+// section grading that spans partitions commits on each partition separately; seat
+// limits and waitlists are enforced by each partition for its own students; and
+// merged pages reach at most ApiServer.MAX_PAGE students deep.
+public class ClusterRouter {
+    private static final Duration NODE_TIMEOUT = Duration.ofSeconds(30);
+    
+    static {
+        // As in ApiServer: small responses otherwise wait out Nagle/delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    private record Reply(int status, String body) {}
+    
+    // Base URIs of one partition's nodes
+    private record Nodes(URI primary, List<URI> replicas, AtomicInteger next) {
+        URI reader() {
+            return replicas.isEmpty() ? primary
+                : replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        }
+    }
+    
+    private final List<Nodes> partitions;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final HttpClient client;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    
+    // partitions.get(i) lists partition i's nodes as host:port, primary first
+    public ClusterRouter(List<List<String>> partitions, int port) throws IOException {
+        this.partitions = new ArrayList<>();
+        for (List<String> nodes : partitions) {
+            List<URI> replicas = new ArrayList<>();
+            for (String replica : nodes.subList(1, nodes.size())) {
+                replicas.add(URI.create("http://" + replica));
+            }
+            this.partitions.add(new Nodes(URI.create("http://" + nodes.get(0)), replicas, new AtomicInteger()));
+        }
+        int threads = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "router-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(NODE_TIMEOUT)
+            .build();
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+    }
+    
+    // "p0primary,p0replica,...;p1primary,..." with host:port entries
+    public static List<List<String>> parseTopology(String spec) {
+        List<List<String>> partitions = new ArrayList<>();
+        for (String partition : spec.split(";")) {
+            List<String> nodes = new ArrayList<>();
+            for (String node : partition.split(",")) {
+                if (!node.isBlank()) {
+                    nodes.add(node.trim());
+                }
+            }
+            if (nodes.isEmpty()) {
+                throw new IllegalArgumentException("Partition without nodes in " + spec);
+            }
+            partitions.add(nodes);
+        }
+        return partitions;
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        Reply reply;
+        try {
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            reply = route(method, path, body, exchange);
+        } catch (IllegalArgumentException e) {
+            reply = error(400, e.getMessage());
+        } catch (CompletionException e) {
+            reply = error(502, "Partition node failed: " + e.getCause());
+        } catch (RuntimeException e) {
+            reply = error(500, String.valueOf(e));
+        }
+        if (reply.status() >= 400) {
+            failures.increment();
+        }
+        
+        byte[] bytes = reply.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        Metrics.histogram("router" + ApiServer.routeName(method, path).substring("api".length())).recordSince(start);
+    }
+    
+    // path[0] is the empty string before the leading slash
+    private Reply route(String method, String[] path, String body, HttpExchange exchange) {
+        String resource = path.length > 1 ? path[1] : "";
+        String id = path.length > 2 ? path[2] : null;
+        String sub = path.length > 3 ? path[3] : null;
+        String target = exchange.getRequestURI().getRawPath();
+        Map<String, String> query = ApiServer.query(exchange);
+        
+        switch (resource) {
+            case "students" -> {
+                if (id == null && method.equals("GET")) {
+                    return query.containsKey("q") ? search(target, query) : page(target, query);
+                }
+                if (id == null && method.equals("POST")) {
+                    return send(method, owner(Json.parseObject(body).get("id")).primary(), target, body);
+                }
+                if (id != null) {
+                    Nodes owner = owner(id);
+                    return send(method, method.equals("GET") ? owner.reader() : owner.primary(), target, body);
+                }
+            }
+            case "courses" -> {
+                if (id == null && method.equals("GET")) {
+                    // Every partition holds every course
+                    return send(method, partitions.get(0).reader(), target, body);
+                }
+                if ("seats".equals(sub) && method.equals("GET")) {
+                    return seats(target);
+                }
+                if ("roster".equals(sub) && method.equals("GET")) {
+                    return roster(target);
+                }
+                if ("grades".equals(sub) && method.equals("GET")) {
+                    return courseGrades(target);
+                }
+                if ("grades".equals(sub) && method.equals("PUT")) {
+                    return gradeSection(target, Json.parseObject(body));
+                }
+            }
+            case "enrollments" -> {
+                if (id == null && method.equals("POST")) {
+                    return send(method, owner(Json.parseObject(body).get("studentId")).primary(), target, body);
+                }
+                if (id == null && method.equals("GET")) {
+                    return page(target, query);
+                }
+                if (id != null && method.equals("DELETE")) {
+                    return send(method, owner(id).primary(), target, body);
+                }
+            }
+            case "stats" -> {
+                if (method.equals("GET")) {
+                    double seconds = (System.nanoTime() - startNanos) / 1e9;
+                    long total = requests.sum();
+                    StringBuilder out = new StringBuilder("{\"requests\":").append(total)
+                        .append(",\"failures\":").append(failures.sum())
+                        .append(",\"partitions\":").append(partitions.size())
+                        .append(",\"uptimeSeconds\":").append((long) seconds)
+                        .append(",\"requestsPerSecond\":");
+                    return new Reply(200, Json.number(out, total / seconds).append('}').toString());
+                }
+            }
+            default -> {
+                return error(404, "No such resource: " + resource);
+            }
+        }
+        return error(405, "Method " + method + " not supported here");
+    }
+    
+    private Nodes owner(String studentId) {
+        if (studentId == null || studentId.isEmpty()) {
+            throw new IllegalArgumentException("A student ID is required");
+        }
+        return partitions.get(Partition.of(studentId, partitions.size()));
+    }
+    
+    // Lists of students (GET /students, GET /enrollments): every partition is asked for
+    // its first offset + limit matches and the merged list is cut to the page
+    private Reply page(String target, Map<String, String> query) {
+        int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+        int limit = Math.min(ApiServer.MAX_PAGE, Integer.parseInt(query.getOrDefault("limit", "100")));
+        Map<String, String> partitionQuery = new LinkedHashMap<>(query);
+        partitionQuery.put("offset", "0");
+        partitionQuery.put("limit", Integer.toString(Math.min(ApiServer.MAX_PAGE, offset + limit)));
+        
+        List<Reply> replies = scatter(target + queryString(partitionQuery));
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        long total = 0;
+        List<Map<String, Object>> students = new ArrayList<>();
+        for (Reply reply : replies) {
+            Map<String, Object> result = object(reply);
+            total += (Long) result.get("total");
+            students.addAll(objects(result.get("students")));
+        }
+        students.sort(Comparator.comparing(student -> (String) student.get("id")));
+        List<Map<String, Object>> page = students.subList(Math.min(offset, students.size()),
+            Math.min(offset + limit, students.size()));
+        return studentList(total, page);
+    }
+    
+    // Search results are ranked per partition; the merge takes them by rank in turn
+    private Reply search(String target, Map<String, String> query) {
+        int limit = Math.min(ApiServer.MAX_PAGE, Integer.parseInt(query.getOrDefault("limit", "100")));
+        List<Reply> replies = scatter(target + queryString(query));
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        List<List<Map<String, Object>>> ranked = new ArrayList<>();
+        for (Reply reply : replies) {
+            ranked.add(objects(object(reply).get("students")));
+        }
+        List<Map<String, Object>> merged = new ArrayList<>();
+        for (int rank = 0; merged.size() < limit; rank++) {
+            boolean any = false;
+            for (List<Map<String, Object>> results : ranked) {
+                if (rank < results.size() && merged.size() < limit) {
+                    merged.add(results.get(rank));
+                    any = true;
+                }
+            }
+            if (!any) break;
+        }
+        return studentList(merged.size(), merged);
+    }
+    
+    private Reply seats(String target) {
+        List<Reply> replies = scatter(target);
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        long taken = 0;
+        long waitlisted = 0;
+        for (Reply reply : replies) {
+            Map<String, Object> seats = object(reply);
+            taken += (Long) seats.get("taken");
+            waitlisted += (Long) seats.get("waitlisted");
+        }
+        StringBuilder out = new StringBuilder("{\"capacity\":");
+        Json.value(out, object(replies.get(0)).get("capacity"));
+        out.append(",\"taken\":").append(taken).append(",\"waitlisted\":").append(waitlisted).append('}');
+        return new Reply(200, out.toString());
+    }
+    
+    private Reply roster(String target) {
+        List<Reply> replies = scatter(target);
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        List<String> ids = new ArrayList<>();
+        for (Reply reply : replies) {
+            for (Object studentId : (List<?>) Json.parse(reply.body())) {
+                ids.add((String) studentId);
+            }
+        }
+        Collections.sort(ids);
+        return new Reply(200, Json.strings(new StringBuilder(), ids).toString());
+    }
+    
+    private Reply courseGrades(String target) {
+        List<Reply> replies = scatter(target);
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        long graded = 0;
+        double points = 0;
+        Map<String, Long> distribution = new TreeMap<>();
+        for (Reply reply : replies) {
+            Map<String, Object> summary = object(reply);
+            long partitionGraded = (Long) summary.get("graded");
+            graded += partitionGraded;
+            if (summary.get("average") instanceof Number average) {
+                points += average.doubleValue() * partitionGraded;
+            }
+            Map<String, Object> counts = object(summary.get("distribution"));
+            counts.forEach((grade, count) -> distribution.merge(grade, (Long) count, Long::sum));
+        }
+        StringBuilder out = new StringBuilder("{\"course\":");
+        Json.value(out, object(replies.get(0)).get("course")).append(",\"graded\":").append(graded)
+            .append(",\"average\":");
+        Json.number(out, graded == 0 ? Double.NaN : points / graded).append(",\"distribution\":");
+        return new Reply(200, Json.value(out, new LinkedHashMap<String, Object>(distribution)).append('}').toString());
+    }
+    
+    // Each partition grades its own students; the partitions commit independently
+    private Reply gradeSection(String target, Map<String, String> grades) {
+        List<Map<String, String>> byPartition = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            byPartition.add(new LinkedHashMap<>());
+        }
+        for (Map.Entry<String, String> entry : grades.entrySet()) {
+            byPartition.get(Partition.of(entry.getKey(), partitions.size())).put(entry.getKey(), entry.getValue());
+        }
+        
+        List<CompletableFuture<Reply>> sent = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            // Partition 0 is always asked, so an unknown course is reported even with no grades
+            if (i == 0 || !byPartition.get(i).isEmpty()) {
+                String body = Json.stringMap(new StringBuilder(), byPartition.get(i)).toString();
+                sent.add(sendAsync("PUT", partitions.get(i).primary(), target, body));
+            }
+        }
+        List<Reply> replies = join(sent);
+        Reply failed = firstError(replies);
+        if (failed != null) return failed;
+        
+        long updated = 0;
+        for (Reply reply : replies) {
+            updated += (Long) object(reply).get("updated");
+        }
+        return new Reply(200, "{\"updated\":" + updated + "}");
+    }
+    
+    private Reply send(String method, URI node, String target, String body) {
+        return sendAsync(method, node, target, body).join();
+    }
+    
+    // The same GET to one reader of every partition, in parallel
+    private List<Reply> scatter(String target) {
+        List<CompletableFuture<Reply>> sent = new ArrayList<>();
+        for (Nodes nodes : partitions) {
+            sent.add(sendAsync("GET", nodes.reader(), target, ""));
+        }
+        return join(sent);
+    }
+    
+    private CompletableFuture<Reply> sendAsync(String method, URI node, String target, String body) {
+        HttpRequest request = HttpRequest.newBuilder(node.resolve(target))
+            .timeout(NODE_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .method(method, body.isEmpty() ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> new Reply(response.statusCode(), response.body()));
+    }
+    
+    private static List<Reply> join(List<CompletableFuture<Reply>> sent) {
+        List<Reply> replies = new ArrayList<>(sent.size());
+        for (CompletableFuture<Reply> reply : sent) {
+            replies.add(reply.join());
+        }
+        return replies;
+    }
+    
+    private static Reply firstError(List<Reply> replies) {
+        for (Reply reply : replies) {
+            if (reply.status() >= 400) {
+                return reply;
+            }
+        }
+        return null;
+    }
+    
+    private static Reply studentList(long total, List<Map<String, Object>> students) {
+        StringBuilder out = new StringBuilder("{\"total\":").append(total).append(",\"students\":");
+        return new Reply(200, Json.value(out, students).append('}').toString());
+    }
+    
+    private static String queryString(Map<String, String> query) {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            out.append(out.length() == 0 ? '?' : '&').append(entry.getKey()).append('=')
+                .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return out.toString();
+    }
+    
+    private static Map<String, Object> object(Reply reply) {
+        return object(Json.parse(reply.body()));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        return (Map<String, Object>) value;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> objects(Object value) {
+        return (List<Map<String, Object>>) value;
+    }
+    
+    private static Reply error(int status, String message) {
+        return new Reply(status, Json.string(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+}
@@ -0,0 +1,287 @@
+package sms;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Binary columnar snapshot of the student/course model.
+// Majors, course codes and grades are dictionary encoded; each student is a row
+// in fixed-width int columns, so any row can be decoded straight from the
+// memory-mapped file without reading the rows before it.
+//
+// Layout: header | dictionaries (courses with capacity, majors, grades)
+//         | id, name, email, major, enrollment-start columns
+//         | enrollment course ids (int) | enrollment grades (byte) | string heap
+public class ColumnarSnapshot implements PageSource<Student> {
+    private static final int MAGIC = 0x534D5332;
+    // Version 2 added course capacities; version 1 files still load, with unlimited seats
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 48;
+    
+    // Set on an enrollment entry that only carries a grade, without an actual enrollment
+    private static final int GRADE_ONLY = 0x80000000;
+    
+    private final MappedByteBuffer buffer;
+    private final long firstSegment;
+    private final int studentCount;
+    private final List<Course> courses = new ArrayList<>();
+    private final String[] courseCodes;
+    private final String[] majors;
+    private final String[] grades;
+    private final int idColumn;
+    private final int nameColumn;
+    private final int emailColumn;
+    private final int majorColumn;
+    private final int enrollmentStartColumn;
+    private final int courseIdColumn;
+    private final int gradeColumn;
+    private final int heap;
+    
+    private ColumnarSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || version < 1 || version > VERSION) {
+            throw new IOException("Not a columnar snapshot");
+        }
+        firstSegment = buffer.getLong(8);
+        studentCount = buffer.getInt(16);
+        int enrollmentCount = buffer.getInt(20);
+        int courseCount = buffer.getInt(24);
+        int majorCount = buffer.getInt(28);
+        int gradeCount = buffer.getInt(32);
+        int studentColumns = buffer.getInt(36);
+        int enrollmentColumns = buffer.getInt(40);
+        heap = buffer.getInt(44);
+        
+        ByteBuffer dictionaries = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_SIZE);
+        courseCodes = new String[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            courseCodes[i] = readString(dictionaries);
+            String name = readString(dictionaries);
+            int capacity = version >= 2 ? dictionaries.getInt() : Course.UNLIMITED;
+            if (name != null) {
+                courses.add(new Course(courseCodes[i], name, capacity));
+            }
+        }
+        majors = new String[majorCount];
+        for (int i = 0; i < majorCount; i++) {
+            majors[i] = readString(dictionaries);
+        }
+        grades = new String[gradeCount + 1];
+        for (int i = 1; i <= gradeCount; i++) {
+            grades[i] = readString(dictionaries);
+        }
+        
+        idColumn = studentColumns;
+        nameColumn = idColumn + 4 * studentCount;
+        emailColumn = nameColumn + 4 * studentCount;
+        majorColumn = emailColumn + 4 * studentCount;
+        enrollmentStartColumn = majorColumn + 4 * studentCount;
+        courseIdColumn = enrollmentColumns;
+        gradeColumn = courseIdColumn + 4 * enrollmentCount;
+    }
+    
+    // Maps the file; only the header and dictionaries are decoded here
+    public static ColumnarSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    public long getFirstSegment() { return firstSegment; }
+    public List<Course> getCourses() { return Collections.unmodifiableList(courses); }
+    
+    @Override
+    public int size() {
+        return studentCount;
+    }
+    
+    @Override
+    public void fetch(int from, int to, Object[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = readStudent(i);
+        }
+    }
+    
+    public Student readStudent(int row) {
+        int majorId = buffer.getInt(majorColumn + 4 * row);
+        
+        int start = buffer.getInt(enrollmentStartColumn + 4 * row);
+        int end = buffer.getInt(enrollmentStartColumn + 4 * row + 4);
+        Set<String> enrolled = new HashSet<>();
+        Map<String, String> studentGrades = new HashMap<>();
+        for (int e = start; e < end; e++) {
+            int courseId = buffer.getInt(courseIdColumn + 4 * e);
+            String code = courseCodes[courseId & ~GRADE_ONLY];
+            if ((courseId & GRADE_ONLY) == 0) {
+                enrolled.add(code);
+            }
+            byte grade = buffer.get(gradeColumn + e);
+            if (grade != 0) {
+                studentGrades.put(code, grades[grade & 0xFF]);
+            }
+        }
+        return new Student(
+            heapString(buffer.getInt(idColumn + 4 * row)),
+            heapString(buffer.getInt(nameColumn + 4 * row)),
+            heapString(buffer.getInt(emailColumn + 4 * row)),
+            majorId < 0 ? null : majors[majorId],
+            enrolled, studentGrades);
+    }
+    
+    public static void write(Path file, List<Course> courseList, List<Student> students, long firstSegment)
+            throws IOException {
+        Map<String, Integer> courseIds = new LinkedHashMap<>();
+        Map<String, Course> coursesByCode = new HashMap<>();
+        for (Course course : courseList) {
+            courseIds.putIfAbsent(course.getCode(), courseIds.size());
+            coursesByCode.put(course.getCode(), course);
+        }
+        Map<String, Integer> majorIds = new LinkedHashMap<>();
+        Map<String, Integer> gradeIds = new LinkedHashMap<>();
+        
+        int n = students.size();
+        int enrollmentCount = 0;
+        // One consistent state per student for both passes
+        Student.State[] states = new Student.State[n];
+        for (int i = 0; i < n; i++) {
+            states[i] = students.get(i).getState();
+            Set<String> codes = new HashSet<>(states[i].enrolledCourses());
+            codes.addAll(states[i].grades().keySet());
+            enrollmentCount += codes.size();
+        }
+        
+        ByteBuffer columns = ByteBuffer.allocate(4 * (5 * n + 1)).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer courseIdColumn = ByteBuffer.allocate(4 * enrollmentCount).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] gradeColumn = new byte[enrollmentCount];
+        StringHeap heap = new StringHeap();
+        
+        int enrollment = 0;
+        for (int i = 0; i < n; i++) {
+            Student.State state = states[i];
+            columns.putInt(4 * i, heap.add(students.get(i).getId()));
+            columns.putInt(4 * (n + i), heap.add(state.name()));
+            columns.putInt(4 * (2 * n + i), heap.add(state.email()));
+            columns.putInt(4 * (3 * n + i), state.major() == null ? -1
+                : majorIds.computeIfAbsent(state.major(), k -> majorIds.size()));
+            columns.putInt(4 * (4 * n + i), enrollment);
+            
+            Set<String> codes = new TreeSet<>(state.enrolledCourses());
+            codes.addAll(state.grades().keySet());
+            for (String code : codes) {
+                int courseId = courseIds.computeIfAbsent(code, k -> courseIds.size());
+                if (!state.enrolledCourses().contains(code)) {
+                    courseId |= GRADE_ONLY;
+                }
+                courseIdColumn.putInt(4 * enrollment, courseId);
+                String grade = state.grades().get(code);
+                if (grade != null) {
+                    int gradeId = gradeIds.computeIfAbsent(grade, k -> gradeIds.size() + 1);
+                    if (gradeId > 255) {
+                        throw new IOException("Too many distinct grade values for a byte encoding");
+                    }
+                    gradeColumn[enrollment] = (byte) gradeId;
+                }
+                enrollment++;
+            }
+        }
+        columns.putInt(4 * 5 * n, enrollment);
+        
+        ByteArrayOutputStream dictionaries = new ByteArrayOutputStream();
+        for (String code : courseIds.keySet()) {
+            Course course = coursesByCode.get(code);
+            writeString(dictionaries, code);
+            writeString(dictionaries, course == null ? null : course.getName());
+            writeInt(dictionaries, course == null ? Course.UNLIMITED : course.getCapacity());
+        }
+        for (String major : majorIds.keySet()) {
+            writeString(dictionaries, major);
+        }
+        for (String grade : gradeIds.keySet()) {
+            writeString(dictionaries, grade);
+        }
+        
+        int studentColumns = HEADER_SIZE + dictionaries.size();
+        int enrollmentColumns = studentColumns + columns.capacity();
+        long heapOffset = (long) enrollmentColumns + courseIdColumn.capacity() + gradeColumn.length;
+        if (heapOffset + heap.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot exceeds 2 GB");
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstSegment)
+            .putInt(n).putInt(enrollmentCount).putInt(courseIds.size())
+            .putInt(majorIds.size()).putInt(gradeIds.size())
+            .putInt(studentColumns).putInt(enrollmentColumns).putInt((int) heapOffset);
+        header.flip();
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] sections = {
+                header,
+                ByteBuffer.wrap(dictionaries.toByteArray()),
+                columns,
+                courseIdColumn,
+                ByteBuffer.wrap(gradeColumn),
+                ByteBuffer.wrap(heap.bytes(), 0, heap.size())
+            };
+            long remaining = heapOffset + heap.size();
+            while (remaining > 0) {
+                remaining -= channel.write(sections);
+            }
+            channel.force(true);
+        }
+    }
+    
+    private String heapString(int offset) {
+        if (offset < 0) return null;
+        int length = buffer.getInt(heap + offset);
+        byte[] bytes = new byte[length];
+        buffer.get(heap + offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+    
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+    
+    // Length-prefixed UTF-8 strings addressed by byte offset
+    private static class StringHeap {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        
+        int add(String value) {
+            if (value == null) return -1;
+            int offset = out.size();
+            writeString(out, value);
+            return offset;
+        }
+        
+        byte[] bytes() { return out.toByteArray(); }
+        int size() { return out.size(); }
+    }
+}
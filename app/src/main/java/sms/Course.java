@@ -0,0 +1,33 @@
+package sms;
+
+public class Course {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    
+    private final String code;
+    private final String name;
+    private final int capacity;
+    
+    public Course(String code, String name) {
+        this(code, name, UNLIMITED);
+    }
+    
+    public Course(String code, String name, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.code = code;
+        this.name = name;
+        this.capacity = capacity;
+    }
+    
+    public String getCode() { return code; }
+    public String getName() { return name; }
+    
+    // Seats in the section; UNLIMITED if there is no limit
+    public int getCapacity() { return capacity; }
+    
+    @Override
+    public String toString() {
+        return code + " - " + name;
+    }
+}
\ No newline at end of file
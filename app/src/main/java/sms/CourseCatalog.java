@@ -0,0 +1,135 @@
+package sms;
+
+import java.util.*;
+
+// Safe to use from any thread; every method synchronizes on the catalog
+public class CourseCatalog implements PageSource<Course> {
+    private final ArrayList<Course> courses = new ArrayList<>();
+    private final Map<String, Course> byCode = new HashMap<>();
+    
+    // Inverted enrollment index: course code -> ordinals of the enrolled students.
+    // Rosters hold ordinals rather than students, so resolving them needs the one
+    // repository that feeds this catalog.
+    private final Map<String, OrdinalBitmap> rosters = new HashMap<>();
+    private StudentRepository students;
+    
+    public synchronized void add(Course course) {
+        if (byCode.containsKey(course.getCode())) {
+            throw new IllegalArgumentException("Course code already exists");
+        }
+        
+        courses.add(course);
+        byCode.put(course.getCode(), course);
+    }
+    
+    public synchronized Course findByCode(String code) {
+        return byCode.get(code);
+    }
+    
+    public synchronized Course get(int index) {
+        return courses.get(index);
+    }
+    
+    @Override
+    public synchronized int size() {
+        return courses.size();
+    }
+    
+    @Override
+    public synchronized void fetch(int from, int to, Object[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = courses.get(i);
+        }
+    }
+    
+    public synchronized boolean isEmpty() {
+        return courses.isEmpty();
+    }
+    
+    public synchronized List<Course> getAll() {
+        return new ArrayList<>(courses);
+    }
+    
+    // Ordinals are copied under the catalog lock and resolved after releasing it, as
+    // the repository lock must never be taken while holding the catalog's
+    public Set<Student> getRoster(String code) {
+        StudentRepository owner;
+        int[] ordinals;
+        synchronized (this) {
+            owner = students;
+            ordinals = getRosterOrdinals(code);
+        }
+        return owner == null ? Set.of() : Set.copyOf(owner.getAll(ordinals));
+    }
+    
+    public synchronized int getEnrollmentCount(String code) {
+        OrdinalBitmap roster = rosters.get(code);
+        return roster == null ? 0 : roster.cardinality();
+    }
+    
+    // Sorted repository ordinals of the roster
+    synchronized int[] getRosterOrdinals(String code) {
+        OrdinalBitmap roster = rosters.get(code);
+        return roster == null ? new int[0] : roster.toArray();
+    }
+    
+    // Ordinals of the students enrolled in every course of allOf, in at least one course
+    // of anyOf (if any are given) and in none of noneOf. An empty allOf starts from every
+    // ordinal below studentCount, so ([], [], [X]) is everyone not taking X.
+    // Unknown codes have empty rosters. The result is a fresh bitmap the caller owns.
+    synchronized OrdinalBitmap match(Collection<String> allOf, Collection<String> anyOf, 
+            Collection<String> noneOf, int studentCount) {
+        OrdinalBitmap result = null;
+        for (String code : allOf) {
+            result = result == null ? roster(code).copy() : result.and(roster(code));
+        }
+        if (result == null) {
+            result = OrdinalBitmap.range(studentCount);
+        }
+        if (!anyOf.isEmpty()) {
+            result = result.and(union(anyOf));
+        }
+        if (!noneOf.isEmpty()) {
+            result = result.andNot(union(noneOf));
+        }
+        return result;
+    }
+    
+    // Ordinals of the students enrolled in at least one of the courses, as a fresh bitmap
+    synchronized OrdinalBitmap anyOf(Collection<String> codes) {
+        return union(codes);
+    }
+    
+    private OrdinalBitmap union(Collection<String> codes) {
+        OrdinalBitmap union = new OrdinalBitmap();
+        for (String code : codes) {
+            union = union.or(roster(code));
+        }
+        return union;
+    }
+    
+    private OrdinalBitmap roster(String code) {
+        OrdinalBitmap roster = rosters.get(code);
+        return roster == null ? new OrdinalBitmap() : roster;
+    }
+    
+    // Called once by the StudentRepository built over this catalog
+    synchronized void attach(StudentRepository repository) {
+        if (students != null && students != repository) {
+            throw new IllegalStateException("Catalog already belongs to another student repository");
+        }
+        students = repository;
+    }
+    
+    // Called by StudentRepository when a student enrolls in a course
+    synchronized void studentEnrolled(Student student, String code) {
+        rosters.computeIfAbsent(code, k -> new OrdinalBitmap()).add(student.getOrdinal());
+    }
+    
+    synchronized void studentDropped(Student student, String code) {
+        OrdinalBitmap roster = rosters.get(code);
+        if (roster != null) {
+            roster.remove(student.getOrdinal());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package sms;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.*;
+
+// Course-centric gradebook: the roster of one course with grades and GPAs, the course's
+// grade distribution and the per-major averages. All numbers come from GradeAnalytics,
+// so refreshing after a grade change never rescans students.
+public class CourseGradebookPanel extends JPanel {
+    private static final int REFRESH_DELAY_MS = 250;
+    
+    private final CourseCatalog courses;
+    private final GradeAnalytics analytics;
+    private final JComboBox<Course> courseComboBox;
+    private final LazyComboBoxModel<Course> courseModel;
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final GradebookTableModel rosterModel;
+    private final DefaultTableModel distributionModel = readOnlyModel("Grade", "Count", "Share");
+    private final DefaultTableModel majorModel = readOnlyModel("Major", "Average");
+    private final BackgroundTasks tasks = new BackgroundTasks(this, "gradebook");
+    
+    // Grade events during bulk grading are coalesced into one refresh per delay, and
+    // enrollment changes to the selected course into one roster reload
+    private final javax.swing.Timer refreshTimer = new javax.swing.Timer(REFRESH_DELAY_MS, e -> refresh());
+    private boolean rosterChanged;
+    
+    public CourseGradebookPanel(StudentRepository students, CourseCatalog courses, GradeAnalytics analytics) {
+        this.courses = courses;
+        this.analytics = analytics;
+        setLayout(new BorderLayout());
+        
+        JPanel topPanel = new JPanel(new FlowLayout());
+        topPanel.add(new JLabel("Select Course:"));
+        courseModel = new LazyComboBoxModel<>(courses);
+        courseComboBox = new JComboBox<>(courseModel);
+        LazyComboBoxModel.setPrototype(courseComboBox, EnrollmentPanel.PROTOTYPE_COURSE);
+        courseComboBox.addActionListener(e -> updateRoster());
+        topPanel.add(courseComboBox);
+        topPanel.add(summaryLabel);
+        topPanel.add(tasks.getBusyIndicator());
+        add(topPanel, BorderLayout.NORTH);
+        
+        rosterModel = new GradebookTableModel(analytics);
+        JPanel statsPanel = new JPanel(new GridLayout(2, 1));
+        statsPanel.add(new JScrollPane(new JTable(distributionModel)));
+        statsPanel.add(new JScrollPane(new JTable(majorModel)));
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+            new JScrollPane(new JTable(rosterModel)), statsPanel);
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER);
+        
+        refreshTimer.setRepeats(false);
+        students.addListener(new EdtRepositoryListener(new StudentRepositoryListener() {
+            @Override
+            public void studentUpdated(Student student) {
+                scheduleRefresh();
+            }
+            
+            @Override
+            public void studentEnrolled(Student student, String courseCode) {
+                rosterChanged(courseCode);
+            }
+            
+            @Override
+            public void studentDropped(Student student, String courseCode) {
+                rosterChanged(courseCode);
+            }
+            
+            @Override
+            public void gradesChanged(Student student) {
+                scheduleRefresh();
+            }
+            
+            @Override
+            public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+                scheduleRefresh();
+            }
+        }));
+        
+        if (!courses.isEmpty()) {
+            updateRoster();
+        }
+    }
+    
+    private void updateRoster() {
+        Course selectedCourse = (Course) courseComboBox.getSelectedItem();
+        if (selectedCourse == null) return;
+        
+        rosterChanged = false;
+        String courseCode = selectedCourse.getCode();
+        tasks.run("roster", () -> {
+            List<Student> roster = new ArrayList<>(courses.getRoster(courseCode));
+            roster.sort(Comparator.comparing(Student::getId));
+            return roster;
+        }, roster -> {
+            rosterModel.setRoster(courseCode, roster);
+            refreshAggregates();
+        });
+    }
+    
+    // Checked against the selected course rather than the shown roster, so a change
+    // made while the roster for a newly selected course loads is not missed
+    private void rosterChanged(String courseCode) {
+        Course selectedCourse = (Course) courseComboBox.getSelectedItem();
+        if (selectedCourse != null && courseCode.equals(selectedCourse.getCode())) {
+            rosterChanged = true;
+            scheduleRefresh();
+        }
+    }
+    
+    private void scheduleRefresh() {
+        if (!refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+    
+    // Reloading the roster refreshes the aggregates once it arrives
+    private void refresh() {
+        if (rosterChanged) {
+            updateRoster();
+        } else {
+            refreshAggregates();
+        }
+    }
+    
+    private void refreshAggregates() {
+        rosterModel.refresh();
+        
+        String courseCode = rosterModel.getCourseCode();
+        distributionModel.setRowCount(0);
+        if (courseCode != null) {
+            GradeAnalytics.CourseSummary summary = analytics.getCourseSummary(courseCode);
+            int total = summary.distribution().values().stream().mapToInt(Integer::intValue).sum();
+            summary.distribution().forEach((grade, count) -> distributionModel.addRow(new Object[]{
+                grade, count, total == 0 ? "" : String.format("%.1f%%", 100.0 * count / total)}));
+            summaryLabel.setText("Enrolled: " + courses.getEnrollmentCount(courseCode)
+                + "   Graded: " + summary.graded()
+                + "   Average: " + formatPoints(summary.average()));
+        }
+        
+        majorModel.setRowCount(0);
+        analytics.getMajorAverages().forEach((major, average) ->
+            majorModel.addRow(new Object[]{major, formatPoints(average)}));
+    }
+    
+    // Courses are only ever appended, so the selection is kept
+    public void refreshCourseComboBox() {
+        courseModel.sourceGrew();
+    }
+    
+    static String formatPoints(double points) {
+        return Double.isNaN(points) ? "-" : String.format("%.2f", points);
+    }
+    
+    private static DefaultTableModel readOnlyModel(String... columnNames) {
+        return new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
+
+// Roster rows read the student's current grade and the analytics GPA when painted
+class GradebookTableModel extends InstrumentedTableModel {
+    private final String[] columnNames = {"ID", "Name", "Major", "Grade", "GPA"};
+    private final GradeAnalytics analytics;
+    private List<Student> roster = new ArrayList<>();
+    private String courseCode;
+    
+    public GradebookTableModel(GradeAnalytics analytics) {
+        this.analytics = analytics;
+    }
+    
+    public void setRoster(String courseCode, List<Student> roster) {
+        this.courseCode = courseCode;
+        this.roster = roster;
+        fireTableDataChanged();
+    }
+    
+    public String getCourseCode() {
+        return courseCode;
+    }
+    
+    public void refresh() {
+        if (!roster.isEmpty()) {
+            fireTableRowsUpdated(0, roster.size() - 1);
+        }
+    }
+    
+    @Override
+    public int getRowCount() {
+        return roster.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Student student = roster.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> student.getId();
+            case 1 -> student.getName();
+            case 2 -> student.getMajor();
+            case 3 -> student.getGrades().getOrDefault(courseCode, "");
+            case 4 -> CourseGradebookPanel.formatPoints(analytics.getGpa(student));
+            default -> null;
+        };
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+}
@@ -0,0 +1,276 @@
+package sms;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Streaming CSV import/export for students, courses, enrollments and grades.
+// Files are read and written on a background executor in chunks; each chunk is
+// applied to (or copied out of) the model in one batch on that executor, so a
+// 50k-row import fires one table event per chunk instead of one per row. Exports read
+// a ModelSnapshot, so the file is consistent as of one moment while edits carry on.
+//
+// Formats (with a header line):
+//   students:    id,name,email,major
+//   courses:     code,name[,capacity]
+//   enrollments: studentId,courseCode[,grade]
+public class CsvTransfer {
+    private static final int CHUNK_SIZE = 5_000;
+    
+    // All callbacks run on the UI executor
+    public interface ProgressListener {
+        void progress(int percent, String message);
+        
+        default void finished(Result result) {}
+        
+        default void failed(Exception error) {}
+    }
+    
+    public record Result(int applied, int rejected) {}
+    
+    private final CourseCatalog courses;
+    private final StudentRepository students;
+    private final Executor uiExecutor;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "csv-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // uiExecutor delivers progress callbacks (the EDT in the GUI)
+    public CsvTransfer(CourseCatalog courses, StudentRepository students, Executor uiExecutor) {
+        this.courses = courses;
+        this.students = students;
+        this.uiExecutor = uiExecutor;
+    }
+    
+    public Future<Result> importStudents(Path file, ProgressListener progress) {
+        return importChunks(file, progress, "students", chunk -> {
+            List<Student> batch = new ArrayList<>(chunk.size());
+            for (String[] row : chunk) {
+                if (row.length >= 2 && !row[0].isEmpty() && !row[1].isEmpty()) {
+                    batch.add(new Student(row[0], row[1], field(row, 2), field(row, 3)));
+                }
+            }
+            int invalid = chunk.size() - batch.size();
+            // ID validation for the whole chunk happens inside one addAll call
+            return () -> {
+                int duplicates = students.addAll(batch).size();
+                return new Result(batch.size() - duplicates, invalid + duplicates);
+            };
+        });
+    }
+    
+    public Future<Result> importCourses(Path file, ProgressListener progress) {
+        return importChunks(file, progress, "courses", chunk -> () -> {
+            int applied = 0;
+            for (String[] row : chunk) {
+                if (row.length >= 2 && !row[0].isEmpty() && courses.findByCode(row[0]) == null) {
+                    String capacity = field(row, 2);
+                    try {
+                        courses.add(capacity == null || capacity.isEmpty() ? new Course(row[0], row[1])
+                            : new Course(row[0], row[1], Integer.parseInt(capacity)));
+                        applied++;
+                    } catch (IllegalArgumentException e) {
+                        // Malformed capacity: the row counts as rejected
+                    }
+                }
+            }
+            return new Result(applied, chunk.size() - applied);
+        });
+    }
+    
+    public Future<Result> importEnrollments(Path file, ProgressListener progress) {
+        return importChunks(file, progress, "enrollments", chunk -> () -> {
+            int applied = 0;
+            // Enrollments and grades are collected per student and applied by one enrollAll
+            // call, so the chunk is one transaction with one event
+            Map<Student, List<String>> enrollments = new LinkedHashMap<>();
+            Map<Student, Map<String, String>> gradeUpdates = new LinkedHashMap<>();
+            for (String[] row : chunk) {
+                Student student = row.length >= 2 ? students.findById(row[0]) : null;
+                if (student == null || courses.findByCode(row[1]) == null) continue;
+                
+                enrollments.computeIfAbsent(student, s -> new ArrayList<>()).add(row[1]);
+                String grade = field(row, 2);
+                if (grade != null && !grade.isEmpty()) {
+                    gradeUpdates.computeIfAbsent(student, s -> new HashMap<>()).put(row[1], grade);
+                }
+                applied++;
+            }
+            students.enrollAll(enrollments, gradeUpdates);
+            return new Result(applied, chunk.size() - applied);
+        });
+    }
+    
+    public Future<Result> exportStudents(Path file, ProgressListener progress) {
+        return exportChunks(file, progress, "id,name,email,major", (student, state, out) ->
+            writeRow(out, student.getId(), state.name(), state.email(), state.major()));
+    }
+    
+    // Gradebook: one row per enrollment, with the grade if there is one
+    public Future<Result> exportGradebook(Path file, ProgressListener progress) {
+        return exportChunks(file, progress, "studentId,courseCode,grade", (student, state, out) -> {
+            for (String courseCode : new TreeSet<>(state.enrolledCourses())) {
+                writeRow(out, student.getId(), courseCode, state.grades().getOrDefault(courseCode, ""));
+            }
+        });
+    }
+    
+    public void shutdown() {
+        background.shutdown();
+    }
+    
+    private interface ChunkHandler {
+        // Parses a chunk; the returned task applies it to the model as one batch
+        Callable<Result> prepare(List<String[]> chunk);
+    }
+    
+    private interface RowWriter {
+        void write(Student student, Student.State state, StringBuilder out);
+    }
+    
+    private Future<Result> importChunks(Path file, ProgressListener progress, String what, ChunkHandler handler) {
+        return submit(progress, () -> {
+            long totalBytes = Math.max(1, Files.size(file));
+            int applied = 0;
+            int rejected = 0;
+            try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16)) {
+                reader.readLine();
+                List<String[]> chunk = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                boolean done = false;
+                while (!done) {
+                    line = reader.readLine();
+                    if (line != null && !line.isBlank()) {
+                        chunk.add(parseRow(line));
+                    }
+                    done = line == null;
+                    if (chunk.size() == CHUNK_SIZE || (done && !chunk.isEmpty())) {
+                        Result result = handler.prepare(chunk).call();
+                        applied += result.applied();
+                        rejected += result.rejected();
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                        report(progress, (int) (100 * counter.count / totalBytes),
+                            "Imported " + applied + " " + what + " (" + rejected + " rejected)");
+                    }
+                }
+            }
+            return new Result(applied, rejected);
+        });
+    }
+    
+    private Future<Result> exportChunks(Path file, ProgressListener progress, String header, RowWriter rowWriter) {
+        return submit(progress, () -> {
+            try (ModelSnapshot snapshot = students.openSnapshot();
+                 BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                int total = snapshot.size();
+                writer.write(header);
+                writer.newLine();
+                StringBuilder out = new StringBuilder(64 * CHUNK_SIZE);
+                for (int from = 0; from < total; from += CHUNK_SIZE) {
+                    int end = Math.min(from + CHUNK_SIZE, total);
+                    out.setLength(0);
+                    snapshot.forEach(from, end, (student, state) -> rowWriter.write(student, state, out));
+                    writer.append(out);
+                    report(progress, (int) (100L * end / Math.max(1, total)), "Exported " + end + " of " + total);
+                }
+                return new Result(total, 0);
+            }
+        });
+    }
+    
+    private Future<Result> submit(ProgressListener progress, Callable<Result> transfer) {
+        return background.submit(() -> {
+            try {
+                Result result = transfer.call();
+                if (progress != null) {
+                    uiExecutor.execute(() -> progress.finished(result));
+                }
+                return result;
+            } catch (Exception e) {
+                if (progress != null) {
+                    uiExecutor.execute(() -> progress.failed(e));
+                }
+                throw e;
+            }
+        });
+    }
+    
+    private void report(ProgressListener progress, int percent, String message) {
+        if (progress != null) {
+            uiExecutor.execute(() -> progress.progress(percent, message));
+        }
+    }
+    
+    private static String field(String[] row, int index) {
+        return index < row.length ? row[index] : null;
+    }
+    
+    // RFC 4180 style: fields may be quoted, quotes inside quoted fields are doubled
+    static String[] parseRow(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+    
+    static void writeRow(StringBuilder out, String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.append(',');
+            String value = fields[i] == null ? "" : fields[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                out.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                out.append(value);
+            }
+        }
+        out.append('\n');
+    }
+    
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
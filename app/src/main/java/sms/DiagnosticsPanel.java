@@ -0,0 +1,164 @@
+package sms;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+// Live view of the latency histograms in Metrics, the EDT stalls caught by the
+// watchdog and the student detail cache's counters, refreshed once a second while the tab is showing. The same numbers are
+// published over JMX; this is for operators sitting at the client.
+public class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 1_000;
+    
+    private final EdtWatchdog watchdog;
+    private final StudentDetailCache detailCache;
+    private final LatencyTableModel latencyModel = new LatencyTableModel();
+    private final DefaultListModel<EdtWatchdog.Stall> stallModel = new DefaultListModel<>();
+    private final JList<EdtWatchdog.Stall> stallList = new JList<>(stallModel);
+    private final JTextArea stackArea = new JTextArea();
+    private final JLabel stallLabel = new JLabel(" ");
+    private final JLabel cacheLabel = new JLabel(" ");
+    private final javax.swing.Timer refreshTimer = new javax.swing.Timer(REFRESH_INTERVAL_MS, e -> refresh());
+    private long shownStallCount = -1;
+    
+    public DiagnosticsPanel(EdtWatchdog watchdog, StudentDetailCache detailCache) {
+        this.watchdog = watchdog;
+        this.detailCache = detailCache;
+        setLayout(new BorderLayout());
+        
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            Metrics.resetAll();
+            watchdog.clearStalls();
+            detailCache.resetCounters();
+            refresh();
+        });
+        topPanel.add(resetButton);
+        topPanel.add(stallLabel);
+        topPanel.add(cacheLabel);
+        add(topPanel, BorderLayout.NORTH);
+        
+        stallList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        stallList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                EdtWatchdog.Stall stall = (EdtWatchdog.Stall) value;
+                String text = stall.started() + "  " + stall.durationMillis() + " ms  " + stall.event();
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        stallList.addListSelectionListener(e -> {
+            EdtWatchdog.Stall stall = stallList.getSelectedValue();
+            stackArea.setText(stall == null ? "" : stall.stackTrace());
+            stackArea.setCaretPosition(0);
+        });
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        
+        JSplitPane stallPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+            new JScrollPane(stallList), new JScrollPane(stackArea));
+        stallPane.setResizeWeight(0.35);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(new JTable(latencyModel)), stallPane);
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER);
+        
+        refresh();
+        refreshTimer.start();
+    }
+    
+    private void refresh() {
+        if (!isShowing() && shownStallCount >= 0) return;
+        
+        latencyModel.update(Metrics.all());
+        long stallCount = watchdog.getStallCount();
+        stallLabel.setText("EDT stalls over " + watchdog.getThresholdMillis() + " ms: " + stallCount
+            + (stallCount > 0 ? ", longest " + watchdog.getLongestStallMillis() + " ms" : ""));
+        cacheLabel.setText(String.format("Detail cache: %d/%d, %.0f%% hits, %d evictions, %d invalidations",
+            detailCache.getSize(), detailCache.getCapacity(), detailCache.getHitRate() * 100,
+            detailCache.getEvictionCount(), detailCache.getInvalidationCount()));
+        if (stallCount != shownStallCount) {
+            shownStallCount = stallCount;
+            EdtWatchdog.Stall selected = stallList.getSelectedValue();
+            stallModel.clear();
+            stallModel.addAll(watchdog.getStalls());
+            stallList.setSelectedValue(selected, false);
+        }
+    }
+}
+
+// One row per histogram, in milliseconds. Deliberately not an InstrumentedTableModel,
+// so the panel's own refreshes do not show up in the numbers it displays.
+class LatencyTableModel extends AbstractTableModel {
+    private final String[] columnNames = {"Operation", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms",
+        "p99.9 ms", "Max ms"};
+    private List<String> names = List.of();
+    private List<LatencyHistogram.Snapshot> snapshots = List.of();
+    
+    public void update(SortedMap<String, LatencyHistogram> histograms) {
+        List<String> newNames = new ArrayList<>(histograms.keySet());
+        List<LatencyHistogram.Snapshot> newSnapshots = new ArrayList<>(newNames.size());
+        for (LatencyHistogram histogram : histograms.values()) {
+            newSnapshots.add(histogram.snapshot());
+        }
+        
+        // Same rows as before: an update event keeps the table's selection and scrolling
+        boolean sameRows = newNames.equals(names);
+        names = newNames;
+        snapshots = newSnapshots;
+        if (!sameRows) {
+            fireTableDataChanged();
+        } else if (!names.isEmpty()) {
+            fireTableRowsUpdated(0, names.size() - 1);
+        }
+    }
+    
+    @Override
+    public int getRowCount() {
+        return names.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return switch (columnIndex) {
+            case 0 -> String.class;
+            case 1 -> Long.class;
+            default -> Double.class;
+        };
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        LatencyHistogram.Snapshot snapshot = snapshots.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> names.get(rowIndex);
+            case 1 -> snapshot.count();
+            case 2 -> millis(snapshot.meanNanos());
+            case 3 -> millis(snapshot.p50Nanos());
+            case 4 -> millis(snapshot.p90Nanos());
+            case 5 -> millis(snapshot.p99Nanos());
+            case 6 -> millis(snapshot.p999Nanos());
+            case 7 -> millis(snapshot.maxNanos());
+            default -> null;
+        };
+    }
+    
+    // Rounded to microseconds, which is as fine as the histograms are worth reading
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+}
@@ -0,0 +1,64 @@
+package sms;
+
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+// Forwards repository events to the Event Dispatch Thread, preserving their order
+public class EdtRepositoryListener implements StudentRepositoryListener {
+    private final StudentRepositoryListener delegate;
+    
+    public EdtRepositoryListener(StudentRepositoryListener delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public void studentAdded(Student student) {
+        onEdt(() -> delegate.studentAdded(student));
+    }
+    
+    @Override
+    public void studentsAdded(List<Student> students) {
+        onEdt(() -> delegate.studentsAdded(students));
+    }
+    
+    @Override
+    public void studentUpdated(Student student) {
+        onEdt(() -> delegate.studentUpdated(student));
+    }
+    
+    @Override
+    public void studentEnrolled(Student student, String courseCode) {
+        onEdt(() -> delegate.studentEnrolled(student, courseCode));
+    }
+    
+    @Override
+    public void studentDropped(Student student, String courseCode) {
+        onEdt(() -> delegate.studentDropped(student, courseCode));
+    }
+    
+    @Override
+    public void gradesChanged(Student student) {
+        onEdt(() -> delegate.gradesChanged(student));
+    }
+    
+    @Override
+    public void gradesUpdated(Student student, Map<String, String> changes) {
+        onEdt(() -> delegate.gradesUpdated(student, changes));
+    }
+    
+    @Override
+    public void enrollmentsImported(Map<Student, List<String>> enrolled, Map<Student, Map<String, String>> grades) {
+        onEdt(() -> delegate.enrollmentsImported(enrolled, grades));
+    }
+    
+    @Override
+    public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+        onEdt(() -> delegate.courseGradesUpdated(courseCode, grades));
+    }
+    
+    // Always posted, even from the EDT, so events are never reordered behind queued ones
+    private static void onEdt(Runnable event) {
+        SwingUtilities.invokeLater(event);
+    }
+}
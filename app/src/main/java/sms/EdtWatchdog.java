@@ -0,0 +1,162 @@
+package sms;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.time.Instant;
+import java.util.*;
+
+// Times every event the EDT handles (histogram ui.edt.dispatch) and records a
+// stall whenever one event keeps it busy past the threshold. The stack is sampled by a
+// monitor thread while the EDT is still stuck, so it shows the code that is blocking
+// rather than where the dispatch ended. The last stalls are kept for the Diagnostics
+// tab and published as the MBean sms:type=EdtWatchdog.
+public class EdtWatchdog implements EdtWatchdogMXBean {
+    private static final int RECENT_STALLS = 20;
+    private static final LatencyHistogram DISPATCH = Metrics.histogram("ui.edt.dispatch");
+    
+    public record Stall(Instant started, long durationMillis, String event, String stackTrace) {
+        @Override
+        public String toString() {
+            return started + " " + durationMillis + " ms in " + event + "\n" + stackTrace;
+        }
+    }
+    
+    private final long thresholdNanos;
+    private final Deque<Stall> recent = new ArrayDeque<>();
+    private long stallCount;
+    private long longestStallNanos;
+    
+    // The event in progress, written by the EDT and read by the monitor. A sequence
+    // number of zero means the EDT is waiting for events.
+    private volatile long dispatchSequence;
+    private volatile long dispatchStart;
+    private volatile Thread dispatchThread;
+    private long sampledSequence;
+    private String sampledStack;
+    
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+    }
+    
+    // Pushes a timing event queue in front of the system one and starts the monitor
+    public static EdtWatchdog install(long thresholdMillis) {
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.new TimingQueue());
+        Thread monitor = new Thread(watchdog::monitor, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+        Metrics.register("sms:type=EdtWatchdog", watchdog);
+        return watchdog;
+    }
+    
+    // The EDT is busy from the moment getNextEvent hands it an event until it asks for
+    // the next one. Modal dialogs pump events from inside a dispatch, so timing the
+    // dispatch itself would count the time a dialog sits open; this does not.
+    private class TimingQueue extends EventQueue {
+        private long sequence;
+        private AWTEvent current;
+        
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            if (current != null) {
+                long elapsed = System.nanoTime() - dispatchStart;
+                finished(dispatchSequence, elapsed, current);
+                dispatchSequence = 0;
+                current = null;
+                DISPATCH.record(elapsed);
+            }
+            AWTEvent event = super.getNextEvent();
+            current = event;
+            dispatchThread = Thread.currentThread();
+            dispatchStart = System.nanoTime();
+            dispatchSequence = ++sequence;
+            return event;
+        }
+    }
+    
+    private void monitor() {
+        long pollMillis = Math.max(1, thresholdNanos / 4_000_000);
+        while (true) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long sequence = dispatchSequence;
+            Thread edt = dispatchThread;
+            if (sequence == 0 || edt == null || System.nanoTime() - dispatchStart < thresholdNanos) continue;
+            
+            synchronized (this) {
+                if (sampledSequence == sequence) continue;
+            }
+            String stack = format(edt.getStackTrace());
+            synchronized (this) {
+                // The dispatch may have finished while the stack was taken; then it is stale
+                if (dispatchSequence == sequence) {
+                    sampledSequence = sequence;
+                    sampledStack = stack;
+                }
+            }
+        }
+    }
+    
+    private synchronized void finished(long sequence, long elapsed, AWTEvent event) {
+        String stack = sampledSequence == sequence ? sampledStack : null;
+        sampledStack = null;
+        if (elapsed < thresholdNanos) return;
+        
+        stallCount++;
+        longestStallNanos = Math.max(longestStallNanos, elapsed);
+        Instant started = Instant.now().minusNanos(elapsed);
+        recent.addFirst(new Stall(started, elapsed / 1_000_000, describe(event),
+            stack != null ? stack : "(finished before the stack could be sampled)\n"));
+        if (recent.size() > RECENT_STALLS) {
+            recent.removeLast();
+        }
+    }
+    
+    // Newest first
+    public synchronized List<Stall> getStalls() {
+        return new ArrayList<>(recent);
+    }
+    
+    public synchronized void clearStalls() {
+        recent.clear();
+        stallCount = 0;
+        longestStallNanos = 0;
+    }
+    
+    @Override
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000;
+    }
+    
+    @Override
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+    
+    @Override
+    public synchronized long getLongestStallMillis() {
+        return longestStallNanos / 1_000_000;
+    }
+    
+    @Override
+    public String[] getRecentStalls() {
+        return getStalls().stream().map(Stall::toString).toArray(String[]::new);
+    }
+    
+    private static String describe(AWTEvent event) {
+        String source = event.getSource() == null ? "" : " from " + event.getSource().getClass().getSimpleName();
+        return event.getClass().getSimpleName() + source;
+    }
+    
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder out = new StringBuilder();
+        for (StackTraceElement frame : stack) {
+            out.append("    at ").append(frame).append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package sms;
+
+// JMX view of the EdtWatchdog; each recent stall is its description and stack trace
+public interface EdtWatchdogMXBean {
+    long getThresholdMillis();
+    long getStallCount();
+    long getLongestStallMillis();
+    String[] getRecentStalls();
+}
@@ -0,0 +1,77 @@
+package sms;
+
+import java.util.List;
+
+// Students not enrolled in a course, addressed by row without copying them out.
+// The view is the complement of the roster bitmap over all ordinals, so row i is the
+// i-th set ordinal (select) and a student's row is the number of set ordinals below
+// theirs (rank). It is built off the EDT under the repository lock; once handed to
+// the table model it belongs to the EDT, which keeps it current from repository
+// events one ordinal at a time (markEnrolled, markEligible, addIfEligible).
+class EligibleStudentsSource implements PageSource<Student> {
+    private final StudentRepository students;
+    private final OrdinalBitmap eligible;
+    private int size;
+    // Ordinals below this were considered when the view was built
+    private int covered;
+    
+    public EligibleStudentsSource(StudentRepository students, CourseCatalog courses, String courseCode) {
+        this.students = students;
+        // Roster and student count are read under one lock so they describe the same moment
+        int[] count = new int[1];
+        this.eligible = students.readLocked(() -> {
+            count[0] = students.size();
+            return courses.match(List.of(), List.of(), courseCode == null ? List.of() : List.of(courseCode), count[0]);
+        });
+        this.size = eligible.cardinality();
+        this.covered = count[0];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    // Row of the student in this view, or -1 if enrolled or not part of the view
+    public int rowOf(Student student) {
+        int ordinal = student.getOrdinal();
+        return ordinal >= 0 && eligible.contains(ordinal) ? eligible.rank(ordinal) : -1;
+    }
+    
+    // These return the row removed or inserted, or -1 if the view already showed the
+    // change (an event committed before the view was built and delivered after it)
+    int markEnrolled(Student student) {
+        int row = rowOf(student);
+        if (row >= 0) {
+            eligible.remove(student.getOrdinal());
+            size--;
+        }
+        return row;
+    }
+    
+    int markEligible(Student student) {
+        int ordinal = student.getOrdinal();
+        if (ordinal < 0 || !eligible.add(ordinal)) return -1;
+        size++;
+        covered = Math.max(covered, ordinal + 1);
+        return eligible.rank(ordinal);
+    }
+    
+    // For a newly added student, who is eligible unless already enrolled in courseCode;
+    // a later enrollment event corrects the view if that changes meanwhile
+    int addIfEligible(Student student, String courseCode) {
+        if (student.getOrdinal() < covered) return -1;
+        covered = student.getOrdinal() + 1;
+        if (courseCode != null && student.isEnrolledIn(courseCode)) return -1;
+        return markEligible(student);
+    }
+    
+    @Override
+    public void fetch(int from, int to, Object[] out) {
+        int ordinal = eligible.select(from);
+        for (int row = from; row < to; row++) {
+            out[row - from] = students.get(ordinal);
+            ordinal = eligible.next(ordinal + 1);
+        }
+    }
+}
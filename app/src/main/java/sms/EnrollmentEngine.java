@@ -0,0 +1,184 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Seat-limited enrollment for registration peaks. Each section keeps an atomic count
+// of taken seats; a registration claims a seat with a CAS loop before the enrollment
+// is recorded, so sections share no lock and contention on a popular section costs
+// CAS retries rather than blocking. A full section puts the student on a FIFO
+// waitlist, which is drained in order as seats free up. While anyone is waiting, new
+// registrations queue behind them instead of taking a freed seat.
+//
+// Enrollments that bypass the engine (imports, log replay) are counted through
+// repository events, even past capacity. Waitlists are kept in memory only.
+public class EnrollmentEngine implements StudentRepositoryListener {
+    public enum Outcome { ENROLLED, WAITLISTED, ALREADY_ENROLLED, ALREADY_WAITLISTED }
+    
+    public record Seats(int capacity, int taken, int waitlisted) {}
+    
+    private final StudentRepository students;
+    private final CourseCatalog courses;
+    private final Map<String, Section> sections = new ConcurrentHashMap<>();
+    
+    // Course being enrolled by the engine on this thread; its event is already counted
+    private final ThreadLocal<String> admitting = new ThreadLocal<>();
+    
+    private static class Section {
+        final int capacity;
+        final AtomicInteger taken;
+        // Queue order only: an entry is live while its student is in waiting, which
+        // leaving the waitlist removes first, so promotion skips stale entries
+        final Queue<Student> waitlist = new ConcurrentLinkedQueue<>();
+        final Set<Student> waiting = ConcurrentHashMap.newKeySet();
+        
+        Section(int capacity, int taken) {
+            this.capacity = capacity;
+            this.taken = new AtomicInteger(taken);
+        }
+        
+        boolean tryClaim() {
+            int current;
+            while ((current = taken.get()) < capacity) {
+                if (taken.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void release() {
+            taken.decrementAndGet();
+        }
+    }
+    
+    public EnrollmentEngine(StudentRepository students, CourseCatalog courses) {
+        this.students = students;
+        this.courses = courses;
+        students.addListener(this);
+    }
+    
+    public Outcome register(Student student, Course course) {
+        Section section = section(course);
+        if (student.isEnrolledIn(course.getCode())) return Outcome.ALREADY_ENROLLED;
+        if (section.waiting.contains(student)) return Outcome.ALREADY_WAITLISTED;
+        
+        if (section.waitlist.isEmpty() && section.tryClaim()) {
+            return enroll(section, student, course.getCode()) ? Outcome.ENROLLED : Outcome.ALREADY_ENROLLED;
+        }
+        
+        if (!section.waiting.add(student)) return Outcome.ALREADY_WAITLISTED;
+        section.waitlist.add(student);
+        // A seat may have been freed between the failed claim and joining the queue
+        promote(section, course.getCode());
+        return student.isEnrolledIn(course.getCode()) ? Outcome.ENROLLED : Outcome.WAITLISTED;
+    }
+    
+    // Drops the enrollment or leaves the waitlist; a freed seat goes to the head of the
+    // waitlist. Returns false if the student was neither enrolled nor waiting.
+    public boolean drop(Student student, Course course) {
+        Section section = section(course);
+        if (section.waiting.remove(student)) {
+            section.waitlist.remove(student);
+            return true;
+        }
+        if (!student.dropCourse(course.getCode())) return false;
+        
+        promote(section, course.getCode());
+        return true;
+    }
+    
+    public Seats getSeats(Course course) {
+        Section section = section(course);
+        return new Seats(section.capacity, section.taken.get(), section.waiting.size());
+    }
+    
+    // Waiting students in promotion order
+    public List<Student> getWaitlist(Course course) {
+        Section section = section(course);
+        List<Student> waitlist = new ArrayList<>();
+        for (Student student : section.waitlist) {
+            if (section.waiting.contains(student)) {
+                waitlist.add(student);
+            }
+        }
+        return waitlist;
+    }
+    
+    // 1-based position on the waitlist, or 0 if the student is not waiting
+    public int getWaitlistPosition(Student student, Course course) {
+        Section section = section(course);
+        int position = 1;
+        for (Student waiting : section.waitlist) {
+            if (waiting == student) return section.waiting.contains(student) ? position : 0;
+            if (section.waiting.contains(waiting)) {
+                position++;
+            }
+        }
+        return 0;
+    }
+    
+    // Hands free seats to waiting students, first come first served
+    private void promote(Section section, String courseCode) {
+        while (!section.waitlist.isEmpty() && section.tryClaim()) {
+            Student next = section.waitlist.poll();
+            if (next == null) {
+                section.release();
+                return;
+            }
+            // The student left the waitlist after being polled or before; the seat stays free
+            if (!section.waiting.remove(next)) {
+                section.release();
+                continue;
+            }
+            enroll(section, next, courseCode);
+        }
+    }
+    
+    // Records an enrollment for a claimed seat, giving the seat back if it was not needed
+    private boolean enroll(Section section, Student student, String courseCode) {
+        admitting.set(courseCode);
+        try {
+            if (student.enrollInCourse(courseCode)) {
+                return true;
+            }
+            section.release();
+            return false;
+        } finally {
+            admitting.remove();
+        }
+    }
+    
+    // Sections start from the catalog's enrollment count. They are created under the
+    // repository lock so no enrollment event can land between counting and publishing.
+    private Section section(Course course) {
+        Section section = sections.get(course.getCode());
+        if (section != null) return section;
+        return students.readLocked(() -> sections.computeIfAbsent(course.getCode(), code -> newSection(course)));
+    }
+    
+    private Section newSection(Course course) {
+        return new Section(course.getCapacity(), courses.getEnrollmentCount(course.getCode()));
+    }
+    
+    // Events arrive under the repository write lock, after the catalog was updated
+    @Override
+    public void studentEnrolled(Student student, String courseCode) {
+        if (courseCode.equals(admitting.get())) return;
+        
+        Section section = sections.get(courseCode);
+        if (section != null) {
+            section.taken.incrementAndGet();
+        }
+    }
+    
+    @Override
+    public void studentDropped(Student student, String courseCode) {
+        Section section = sections.get(courseCode);
+        if (section != null) {
+            section.release();
+        }
+    }
+}
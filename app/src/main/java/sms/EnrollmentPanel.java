@@ -0,0 +1,267 @@
+package sms;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import javax.swing.*;
+
+public class EnrollmentPanel extends JPanel {
+    static final Course PROTOTYPE_COURSE = new Course("XXXXXXXX", "Xxxxxxxxxxxxxxxxxxxxxxxxxxxxxx");
+    
+    private final StudentRepository students;
+    private final CourseCatalog courses;
+    private final EnrollmentService service;
+    private final JComboBox<Course> courseComboBox;
+    private final LazyComboBoxModel<Course> courseModel;
+    private final JTable eligibleStudentsTable;
+    private final EligibleStudentsTableModel tableModel;
+    private final JLabel seatsLabel = new JLabel();
+    private final BackgroundTasks tasks = new BackgroundTasks(this, "enrollment");
+    
+    public EnrollmentPanel(StudentRepository students, CourseCatalog courses, EnrollmentService service) {
+        this.students = students;
+        this.courses = courses;
+        this.service = service;
+        setLayout(new BorderLayout());
+        
+        // Top panel for course selection
+        JPanel topPanel = new JPanel(new FlowLayout());
+        topPanel.add(new JLabel("Select Course:"));
+        
+        courseModel = new LazyComboBoxModel<>(courses);
+        courseComboBox = new JComboBox<>(courseModel);
+        LazyComboBoxModel.setPrototype(courseComboBox, PROTOTYPE_COURSE);
+        courseComboBox.addActionListener(e -> updateEligibleStudentsList());
+        topPanel.add(courseComboBox);
+        topPanel.add(seatsLabel);
+        topPanel.add(tasks.getBusyIndicator());
+        
+        add(topPanel, BorderLayout.NORTH);
+        
+        // Center panel for eligible students
+        tableModel = new EligibleStudentsTableModel(students, courses);
+        eligibleStudentsTable = new JTable(tableModel);
+        
+        add(new JScrollPane(eligibleStudentsTable), BorderLayout.CENTER);
+        
+        // Bottom panel for enrollment button
+        JPanel bottomPanel = new JPanel();
+        JButton enrollButton = new JButton("Enroll Selected Student");
+        enrollButton.addActionListener(e -> enrollStudent());
+        bottomPanel.add(enrollButton);
+        
+        add(bottomPanel, BorderLayout.SOUTH);
+        
+        // Initialize with first course
+        if (!courses.isEmpty()) {
+            updateEligibleStudentsList();
+        }
+    }
+    
+    private void updateEligibleStudentsList() {
+        Course selectedCourse = (Course) courseComboBox.getSelectedItem();
+        if (selectedCourse == null) return;
+        
+        // Building the eligible view waits for the repository lock, so it runs off the EDT;
+        // switching courses again cancels the pending build
+        String courseCode = selectedCourse.getCode();
+        tableModel.viewRequested();
+        tasks.run("eligible", 
+            () -> new EligibleStudentsSource(students, courses, courseCode), 
+            source -> tableModel.setCourse(courseCode, source),
+            error -> {
+                tableModel.viewFailed();
+                JOptionPane.showMessageDialog(this, error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            });
+        updateSeats();
+    }
+    
+    private void updateSeats() {
+        Course selectedCourse = (Course) courseComboBox.getSelectedItem();
+        if (selectedCourse == null) return;
+        
+        tasks.run("seats", () -> service.getSeats(selectedCourse.getCode()), seats -> {
+            String taken = seats.capacity() == Course.UNLIMITED 
+                ? seats.taken() + " enrolled" : seats.taken() + "/" + seats.capacity() + " seats taken";
+            seatsLabel.setText(seats.waitlisted() > 0 ? taken + ", " + seats.waitlisted() + " waitlisted" : taken);
+        });
+    }
+    
+    private void enrollStudent() {
+        int selectedRow = eligibleStudentsTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a student to enroll", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        Course selectedCourse = (Course) courseComboBox.getSelectedItem();
+        Student selectedStudent = tableModel.getStudentAt(selectedRow);
+        
+        tasks.perform("enroll", () -> service.enroll(selectedStudent.getId(), selectedCourse.getCode()), outcome -> {
+            updateSeats();
+            String message = switch (outcome) {
+                case ENROLLED -> selectedStudent.getName() + " enrolled in " + selectedCourse.getName();
+                case WAITLISTED -> selectedCourse.getName() + " is full; " + selectedStudent.getName() 
+                    + " was added to the waitlist";
+                case ALREADY_ENROLLED -> selectedStudent.getName() + " is already enrolled in " + selectedCourse.getName();
+                case ALREADY_WAITLISTED -> selectedStudent.getName() + " is already on the waitlist for " 
+                    + selectedCourse.getName();
+            };
+            JOptionPane.showMessageDialog(this, message, "Enrollment", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+    
+    public void refreshData() {
+        updateEligibleStudentsList();
+    }
+    
+    // Courses are only ever appended; the selection is kept, and the first course is
+    // selected (firing the usual refresh) if there was none
+    public void refreshCourseComboBox() {
+        courseModel.sourceGrew();
+    }
+}
+
+// Events reach this model on the EDT after the change was committed, possibly with
+// further changes already applied behind them. Each one is applied to the shown view
+// by ordinal, without the repository lock; as events arrive in commit order, the view
+// ends up matching the repository once the EDT has caught up. New views for another
+// course are built off the EDT (see EnrollmentPanel.updateEligibleStudentsList);
+// from viewRequested until the new view arrives, events are also logged and then
+// replayed onto it. The log starts before the view's moment, and replaying changes
+// the view already has is harmless, as the last change to each student wins.
+class EligibleStudentsTableModel extends PagedTableModel<Student> implements StudentRepositoryListener {
+    private final String[] columnNames = {"ID", "Name", "Major"};
+    private EligibleStudentsSource source;
+    private String courseCode;
+    // Enrollment changes (courseCode null: added) since viewRequested; null if no view is pending
+    private List<Change> pending;
+    
+    private record Change(Student student, String courseCode, boolean enrolled) {}
+    
+    public EligibleStudentsTableModel(StudentRepository students, CourseCatalog courses) {
+        this(new EligibleStudentsSource(students, courses, null), students);
+    }
+    
+    private EligibleStudentsTableModel(EligibleStudentsSource source, StudentRepository students) {
+        super(source);
+        this.source = source;
+        students.addListener(new EdtRepositoryListener(this));
+    }
+    
+    // Call on the EDT before starting to build a view off it
+    public void viewRequested() {
+        if (pending == null) {
+            pending = new ArrayList<>();
+        }
+    }
+    
+    // The requested view will not arrive; the shown one stays as it is
+    public void viewFailed() {
+        pending = null;
+    }
+    
+    public void setCourse(String courseCode, EligibleStudentsSource source) {
+        if (pending != null) {
+            for (Change change : pending) {
+                if (change.courseCode() == null) {
+                    source.addIfEligible(change.student(), courseCode);
+                } else if (change.courseCode().equals(courseCode)) {
+                    if (change.enrolled()) {
+                        source.markEnrolled(change.student());
+                    } else {
+                        source.markEligible(change.student());
+                    }
+                }
+            }
+            pending = null;
+        }
+        this.courseCode = courseCode;
+        this.source = source;
+        setSource(source);
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public void studentAdded(Student student) {
+        studentsAdded(List.of(student));
+    }
+    
+    // Appended students get the highest ordinals, so the eligible ones are the last rows
+    @Override
+    public void studentsAdded(List<Student> added) {
+        int oldRowCount = getRowCount();
+        int inserted = 0;
+        for (Student student : added) {
+            if (pending != null) {
+                pending.add(new Change(student, null, false));
+            }
+            if (source.addIfEligible(student, courseCode) >= 0) {
+                inserted++;
+            }
+        }
+        if (inserted > 0) {
+            fireRowsInserted(oldRowCount, oldRowCount + inserted - 1);
+        }
+    }
+    
+    @Override
+    public void studentUpdated(Student student) {
+        int row = source.rowOf(student);
+        if (row >= 0 && row < getRowCount()) {
+            fireRowsUpdated(row, row);
+        }
+    }
+    
+    @Override
+    public void studentEnrolled(Student student, String enrolledCourse) {
+        if (pending != null) {
+            pending.add(new Change(student, enrolledCourse, true));
+        }
+        if (!enrolledCourse.equals(courseCode)) return;
+        
+        int row = source.markEnrolled(student);
+        if (row >= 0) {
+            fireRowsDeleted(row, row);
+        }
+    }
+    
+    // The student becomes eligible again at the row of their ordinal
+    @Override
+    public void studentDropped(Student student, String droppedCourse) {
+        if (pending != null) {
+            pending.add(new Change(student, droppedCourse, false));
+        }
+        if (!droppedCourse.equals(courseCode)) return;
+        
+        int row = source.markEligible(student);
+        if (row >= 0) {
+            fireRowsInserted(row, row);
+        }
+    }
+    
+    public Student getStudentAt(int row) {
+        return getRowAt(row);
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    protected Object getColumnValue(Student student, int columnIndex) {
+        return switch (columnIndex) {
+            case 0 -> student.getId();
+            case 1 -> student.getName();
+            case 2 -> student.getMajor();
+            default -> null;
+        };
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+}
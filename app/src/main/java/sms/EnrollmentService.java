@@ -0,0 +1,114 @@
+package sms;
+
+import java.util.*;
+
+// Course listing and enrollment, independent of any UI
+public class EnrollmentService {
+    private static final LatencyHistogram ENROLL = Metrics.histogram("service.enrollment.enroll");
+    private static final LatencyHistogram DROP = Metrics.histogram("service.enrollment.drop");
+    private static final LatencyHistogram FIND = Metrics.histogram("service.enrollment.findStudents");
+    private static final LatencyHistogram ROSTER = Metrics.histogram("service.enrollment.roster");
+    
+    private final StudentRepository students;
+    private final CourseCatalog courses;
+    private final EnrollmentEngine engine;
+    
+    // One page of a set query, with the size of the whole match
+    public record Matches(int total, List<Student> students) {}
+    
+    public EnrollmentService(StudentRepository students, CourseCatalog courses, EnrollmentEngine engine) {
+        this.students = students;
+        this.courses = courses;
+        this.engine = engine;
+    }
+    
+    public List<Course> listCourses() {
+        return courses.getAll();
+    }
+    
+    public Course getCourse(String code) {
+        Course course = courses.findByCode(code);
+        if (course == null) {
+            throw new NoSuchElementException("Unknown course code: " + code);
+        }
+        return course;
+    }
+    
+    // Takes a seat if one is free, otherwise joins the course waitlist
+    public EnrollmentEngine.Outcome enroll(String studentId, String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return engine.register(getStudent(studentId), getCourse(courseCode));
+        } finally {
+            ENROLL.recordSince(start);
+        }
+    }
+    
+    // Returns false if the student was neither enrolled nor waitlisted
+    public boolean drop(String studentId, String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return engine.drop(getStudent(studentId), getCourse(courseCode));
+        } finally {
+            DROP.recordSince(start);
+        }
+    }
+    
+    public EnrollmentEngine.Seats getSeats(String courseCode) {
+        return engine.getSeats(getCourse(courseCode));
+    }
+    
+    public int getWaitlistPosition(String studentId, String courseCode) {
+        return engine.getWaitlistPosition(getStudent(studentId), getCourse(courseCode));
+    }
+    
+    // Students enrolled in all of allOf, in at least one of anyOf (when not empty) and in
+    // none of noneOf, in repository order; e.g. allOf = prerequisites, noneOf = the
+    // course itself lists who may take it next. Answered from the roster bitmaps.
+    public Matches findStudents(Collection<String> allOf, Collection<String> anyOf, Collection<String> noneOf, 
+            int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            for (String code : allOf) getCourse(code);
+            for (String code : anyOf) getCourse(code);
+            for (String code : noneOf) getCourse(code);
+            
+            return students.readLocked(() -> {
+                OrdinalBitmap matches = courses.match(allOf, anyOf, noneOf, students.size());
+                int total = matches.cardinality();
+                int count = Math.max(0, Math.min(limit, total - offset));
+                int[] ordinals = new int[count];
+                for (int i = 0, ordinal = count > 0 ? matches.select(offset) : -1; i < count; i++) {
+                    ordinals[i] = ordinal;
+                    ordinal = matches.next(ordinal + 1);
+                }
+                return new Matches(total, students.getAll(ordinals));
+            });
+        } finally {
+            FIND.recordSince(start);
+        }
+    }
+    
+    private Student getStudent(String studentId) {
+        Student student = students.findById(studentId);
+        if (student == null) {
+            throw new NoSuchElementException("Unknown student ID: " + studentId);
+        }
+        return student;
+    }
+    
+    // Enrolled students sorted by ID
+    public List<Student> getRoster(String courseCode) {
+        long start = System.nanoTime();
+        try {
+            List<Student> roster = new ArrayList<>(courses.getRoster(getCourse(courseCode).getCode()));
+            roster.sort(Comparator.comparing(Student::getId));
+            return roster;
+        } finally {
+            ROSTER.recordSince(start);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package sms;
+
+import java.util.*;
+
+// Running grade aggregates, kept current from repository events instead of rescanning
+// students: per-course grade distribution and average, per-student GPA and per-major
+// average. Events arrive under the repository write lock and only touch the grades
+// they name, so each update costs O(changed grades) and every read is O(1).
+//
+// Letter grades count A=4 .. F=0; any other grade value shows up in the distribution
+// as "Other" but is left out of averages. Point sums are integers, so they never drift.
+public class GradeAnalytics implements StudentRepositoryListener {
+    public static final List<String> GRADES = List.of("A", "B", "C", "D", "F", "Other");
+    private static final int OTHER = 5;
+    
+    public record CourseSummary(String courseCode, Map<String, Integer> distribution, int graded, double average) {}
+    
+    private final Map<String, CourseTotals> byCourse = new HashMap<>();
+    private final Map<String, Totals> byMajor = new HashMap<>();
+    private final Map<Student, StudentTotals> byStudent = new HashMap<>();
+    
+    private static class Totals {
+        long points;
+        int graded;
+        
+        double average() {
+            return graded == 0 ? Double.NaN : (double) points / graded;
+        }
+    }
+    
+    private static class CourseTotals extends Totals {
+        final int[] distribution = new int[GRADES.size()];
+    }
+    
+    // Last grades and major seen for a student, to work out what an event changed
+    private static class StudentTotals extends Totals {
+        String major;
+        Map<String, String> grades = Map.of();
+    }
+    
+    // Loads the current grades and subscribes in one step, so no change is missed or counted twice
+    public GradeAnalytics(StudentRepository students) {
+        students.readLocked(() -> {
+            studentsAdded(students.getAll());
+            students.addListener(this);
+            return null;
+        });
+    }
+    
+    public synchronized CourseSummary getCourseSummary(String courseCode) {
+        CourseTotals totals = byCourse.getOrDefault(courseCode, new CourseTotals());
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < GRADES.size(); i++) {
+            distribution.put(GRADES.get(i), totals.distribution[i]);
+        }
+        return new CourseSummary(courseCode, distribution, totals.graded, totals.average());
+    }
+    
+    // NaN if the student has no letter grades yet
+    public synchronized double getGpa(Student student) {
+        StudentTotals totals = byStudent.get(student);
+        return totals == null ? Double.NaN : totals.average();
+    }
+    
+    public synchronized double getMajorAverage(String major) {
+        Totals totals = byMajor.get(major);
+        return totals == null ? Double.NaN : totals.average();
+    }
+    
+    // Average grade points per major, by major name
+    public synchronized Map<String, Double> getMajorAverages() {
+        Map<String, Double> averages = new TreeMap<>();
+        byMajor.forEach((major, totals) -> {
+            if (totals.graded > 0) {
+                averages.put(major, totals.average());
+            }
+        });
+        return averages;
+    }
+    
+    @Override
+    public synchronized void studentAdded(Student student) {
+        Student.State state = student.getState();
+        StudentTotals totals = new StudentTotals();
+        totals.major = state.major();
+        byStudent.put(student, totals);
+        sync(student, totals, state.grades().keySet());
+    }
+    
+    @Override
+    public synchronized void studentsAdded(List<Student> students) {
+        for (Student student : students) {
+            studentAdded(student);
+        }
+    }
+    
+    // A major change moves the student's points from the old major to the new one
+    @Override
+    public synchronized void studentUpdated(Student student) {
+        StudentTotals totals = byStudent.get(student);
+        String major = student.getMajor();
+        if (totals == null || Objects.equals(totals.major, major)) return;
+        
+        add(majorTotals(totals.major), -totals.points, -totals.graded);
+        totals.major = major;
+        add(majorTotals(major), totals.points, totals.graded);
+    }
+    
+    @Override
+    public synchronized void gradesChanged(Student student) {
+        StudentTotals totals = byStudent.get(student);
+        if (totals == null) return;
+        
+        Set<String> courseCodes = new HashSet<>(totals.grades.keySet());
+        courseCodes.addAll(student.getGrades().keySet());
+        sync(student, totals, courseCodes);
+    }
+    
+    @Override
+    public synchronized void gradesUpdated(Student student, Map<String, String> changes) {
+        StudentTotals totals = byStudent.get(student);
+        if (totals != null) {
+            sync(student, totals, changes.keySet());
+        }
+    }
+    
+    @Override
+    public synchronized void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+        Set<String> courseCodes = Set.of(courseCode);
+        for (Student student : grades.keySet()) {
+            StudentTotals totals = byStudent.get(student);
+            if (totals != null) {
+                sync(student, totals, courseCodes);
+            }
+        }
+    }
+    
+    // Applies the difference between the last seen and the current grade for each course
+    private void sync(Student student, StudentTotals totals, Collection<String> courseCodes) {
+        Map<String, String> current = student.getGrades();
+        for (String courseCode : courseCodes) {
+            String before = totals.grades.get(courseCode);
+            String after = current.get(courseCode);
+            if (!Objects.equals(before, after)) {
+                count(totals, courseCode, before, -1);
+                count(totals, courseCode, after, 1);
+            }
+        }
+        totals.grades = current;
+    }
+    
+    private void count(StudentTotals totals, String courseCode, String grade, int sign) {
+        if (grade == null || grade.isEmpty()) return;
+        
+        CourseTotals course = byCourse.computeIfAbsent(courseCode, k -> new CourseTotals());
+        int index = GRADES.indexOf(grade);
+        course.distribution[index < 0 ? OTHER : index] += sign;
+        if (index >= 0 && index < OTHER) {
+            int points = 4 - index;
+            add(course, sign * points, sign);
+            add(totals, sign * points, sign);
+            add(majorTotals(totals.major), sign * points, sign);
+        }
+    }
+    
+    private Totals majorTotals(String major) {
+        return major == null ? new Totals() : byMajor.computeIfAbsent(major, k -> new Totals());
+    }
+    
+    private static void add(Totals totals, long points, int graded) {
+        totals.points += points;
+        totals.graded += graded;
+    }
+}
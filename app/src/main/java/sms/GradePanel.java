@@ -0,0 +1,502 @@
+package sms;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.function.IntPredicate;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.*;
+
+public class GradePanel extends JPanel {
+    private static final int FIND_LIMIT = 200;
+    static final Student PROTOTYPE_STUDENT = new Student("S0000000", "Xxxxxxxxxxxxxxxxxxxxxxxxxx", null, null);
+    
+    private final StudentRepository students;
+    private final CourseCatalog courses;
+    private final GradeService service;
+    private final StudentService studentService;
+    private final JComboBox<Student> studentComboBox;
+    private final LazyComboBoxModel<Student> studentModel;
+    private final JTextField findField = new JTextField(12);
+    // Type-ahead: the student list is narrowed to the matches once typing pauses
+    private final javax.swing.Timer findTimer = new javax.swing.Timer(200, e -> findStudents());
+    private SearchResultSource found;
+    private final JTable enrolledCoursesTable;
+    private final EnrolledCoursesTableModel tableModel;
+    private final BackgroundTasks tasks = new BackgroundTasks(this, "grades");
+    
+    public GradePanel(StudentRepository students, CourseCatalog courses, GradeService service, 
+            StudentService studentService) {
+        this.students = students;
+        this.courses = courses;
+        this.service = service;
+        this.studentService = studentService;
+        setLayout(new BorderLayout());
+        
+        // Top panel for student selection
+        JPanel topPanel = new JPanel(new FlowLayout());
+        topPanel.add(new JLabel("Find:"));
+        topPanel.add(findField);
+        topPanel.add(new JLabel("Select Student:"));
+        
+        // Items are read from the repository as the combo shows them
+        studentModel = new LazyComboBoxModel<>(students);
+        studentComboBox = new JComboBox<>(studentModel);
+        LazyComboBoxModel.setPrototype(studentComboBox, PROTOTYPE_STUDENT);
+        studentComboBox.addActionListener(e -> updateEnrolledCoursesList());
+        topPanel.add(studentComboBox);
+        topPanel.add(tasks.getBusyIndicator());
+        
+        findTimer.setRepeats(false);
+        findField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                findTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                findTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                findTimer.restart();
+            }
+        });
+        
+        add(topPanel, BorderLayout.NORTH);
+        
+        // Center panel for enrolled courses
+        tableModel = new EnrolledCoursesTableModel(new ArrayList<>(), new HashMap<>());
+        enrolledCoursesTable = new JTable(tableModel);
+        
+        // Add grade editor; edited but unsaved grades are shown in bold
+        enrolledCoursesTable.getColumnModel().getColumn(2).setCellEditor(new GradeCellEditor());
+        enrolledCoursesTable.getColumnModel().getColumn(2).setCellRenderer(new EditedGradeRenderer(tableModel::isEdited));
+        
+        add(new JScrollPane(enrolledCoursesTable), BorderLayout.CENTER);
+        
+        // Bottom panel for save button
+        JPanel bottomPanel = new JPanel();
+        JButton saveButton = new JButton("Save Grades");
+        saveButton.addActionListener(e -> saveGrades());
+        bottomPanel.add(saveButton);
+        JButton sectionButton = new JButton("Grade Course Section...");
+        sectionButton.addActionListener(e -> gradeCourseSection());
+        bottomPanel.add(sectionButton);
+        
+        add(bottomPanel, BorderLayout.SOUTH);
+        
+        // Initialize with first student
+        if (!students.isEmpty()) {
+            updateEnrolledCoursesList();
+        }
+        
+        students.addListener(new EdtRepositoryListener(new StudentRepositoryListener() {
+            // New students get the next ordinals, so they are appended rows
+            @Override
+            public void studentAdded(Student student) {
+                studentsAdded(List.of(student));
+            }
+            
+            @Override
+            public void studentsAdded(List<Student> added) {
+                if (found != null) {
+                    findTimer.restart();
+                    return;
+                }
+                studentModel.fireRowsInserted(added.get(0).getOrdinal(), added.get(added.size() - 1).getOrdinal());
+            }
+            
+            @Override
+            public void studentUpdated(Student student) {
+                int row = found == null ? student.getOrdinal() : found.rowOf(student);
+                if (row >= 0) {
+                    studentModel.fireRowsUpdated(row, row);
+                }
+                if (student == studentComboBox.getSelectedItem()) {
+                    studentComboBox.repaint();
+                }
+                if (found != null) {
+                    findTimer.restart();
+                }
+            }
+            
+            // Course and grade events go to the student the table shows, which is the
+            // selected one or, while a lookup is pending, an empty table for it
+            @Override
+            public void studentEnrolled(Student student, String courseCode) {
+                Course course = courses.findByCode(courseCode);
+                if (student == tableModel.getStudent() && course != null) {
+                    tableModel.addCourse(course);
+                }
+            }
+            
+            // Unsaved edits for the other courses stay
+            @Override
+            public void studentDropped(Student student, String courseCode) {
+                if (student == tableModel.getStudent()) {
+                    if (enrolledCoursesTable.isEditing()) {
+                        enrolledCoursesTable.getCellEditor().stopCellEditing();
+                    }
+                    tableModel.removeCourse(courseCode);
+                }
+            }
+            
+            @Override
+            public void gradesChanged(Student student) {
+                if (student == tableModel.getStudent()) {
+                    tableModel.setGrades(student.getGrades());
+                }
+            }
+            
+            @Override
+            public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+                Student student = tableModel.getStudent();
+                if (student != null && grades.containsKey(student)) {
+                    tableModel.setGrades(student.getGrades());
+                }
+            }
+        }));
+    }
+    
+    private void findStudents() {
+        String query = findField.getText().trim();
+        if (query.isEmpty()) {
+            tasks.run("find", () -> null, result -> {
+                found = null;
+                studentModel.setSource(students);
+            });
+            return;
+        }
+        
+        // The selection stays as it is until a match is picked
+        tasks.run("find", () -> studentService.search(query, FIND_LIMIT), matches -> {
+            found = new SearchResultSource(matches);
+            studentModel.setSource(found);
+            if (!matches.isEmpty() && studentComboBox.isShowing()) {
+                studentComboBox.showPopup();
+            }
+        });
+    }
+    
+    private void updateEnrolledCoursesList() {
+        Student selectedStudent = (Student) studentComboBox.getSelectedItem();
+        if (selectedStudent == null) return;
+        
+        // Another student's edits are dropped straight away rather than when the lookup
+        // returns, so they can never be saved to or shown over the new selection
+        if (selectedStudent != tableModel.getStudent()) {
+            if (enrolledCoursesTable.isEditing()) {
+                enrolledCoursesTable.getCellEditor().cancelCellEditing();
+            }
+            tableModel.setStudent(selectedStudent, new ArrayList<>(), selectedStudent.getGrades());
+        }
+        
+        // Switching students again cancels the pending lookup
+        tasks.run("courses", () -> {
+            ArrayList<Course> enrolledCourses = new ArrayList<>();
+            for (String courseCode : selectedStudent.getEnrolledCourses()) {
+                Course course = courses.findByCode(courseCode);
+                if (course != null) {
+                    enrolledCourses.add(course);
+                }
+            }
+            return enrolledCourses;
+        }, enrolledCourses -> tableModel.setStudent(selectedStudent, enrolledCourses, selectedStudent.getGrades()));
+    }
+    
+    // Saves to the student the edits were made for, whatever is selected by now
+    private void saveGrades() {
+        Student student = tableModel.getStudent();
+        if (student == null) return;
+        
+        // Only the edited (course, grade) pairs are sent; the grades event that follows
+        // the save clears the edits that now match the model
+        Map<String, String> changes = tableModel.getEdits();
+        if (changes.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No grade changes to save", 
+                "Save Grades", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        tasks.perform("save", () -> {
+            service.updateGrades(student, changes);
+            return null;
+        }, result -> JOptionPane.showMessageDialog(this, 
+            "Grades saved successfully!", 
+            "Success", JOptionPane.INFORMATION_MESSAGE));
+    }
+    
+    // Grades every student in one course section and saves the edits as one transaction
+    private void gradeCourseSection() {
+        JComboBox<Course> courseBox = new JComboBox<>(new LazyComboBoxModel<>(courses));
+        LazyComboBoxModel.setPrototype(courseBox, EnrollmentPanel.PROTOTYPE_COURSE);
+        if (courseBox.getItemCount() == 0) return;
+        
+        SectionGradesTableModel sectionModel = new SectionGradesTableModel();
+        JTable sectionTable = new JTable(sectionModel);
+        sectionTable.getColumnModel().getColumn(2).setCellEditor(new GradeCellEditor());
+        sectionTable.getColumnModel().getColumn(2).setCellRenderer(new EditedGradeRenderer(sectionModel::isEdited));
+        
+        Runnable loadRoster = () -> {
+            String courseCode = ((Course) courseBox.getSelectedItem()).getCode();
+            tasks.run("section", () -> {
+                List<Student> roster = new ArrayList<>(courses.getRoster(courseCode));
+                roster.sort(Comparator.comparing(Student::getId));
+                return roster;
+            }, roster -> sectionModel.setSection(courseCode, roster));
+        };
+        courseBox.addActionListener(e -> loadRoster.run());
+        loadRoster.run();
+        
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(courseBox, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(sectionTable);
+        scrollPane.setPreferredSize(new Dimension(450, 300));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        
+        int option = JOptionPane.showConfirmDialog(this, panel, "Grade Course Section", 
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (sectionTable.isEditing()) {
+            sectionTable.getCellEditor().stopCellEditing();
+        }
+        Map<String, String> changes = sectionModel.getEdits();
+        if (option != JOptionPane.OK_OPTION || changes.isEmpty() || sectionModel.getCourseCode() == null) return;
+        
+        String courseCode = sectionModel.getCourseCode();
+        tasks.perform("saveSection", () -> service.updateCourseGrades(courseCode, changes), 
+            updated -> JOptionPane.showMessageDialog(this, 
+                updated + " grade(s) saved for " + courseCode, 
+                "Success", JOptionPane.INFORMATION_MESSAGE));
+    }
+    
+    public void refreshData() {
+        updateEnrolledCoursesList();
+    }
+}
+
+// Grades are shown from the student's saved grades overlaid with the unsaved edits,
+// so the model itself is never written until Save is pressed. The edits belong to the
+// student whose courses are shown.
+class EnrolledCoursesTableModel extends InstrumentedTableModel {
+    private Student student;
+    private ArrayList<Course> courses;
+    private Map<String, String> grades;
+    private final Map<String, String> edits = new HashMap<>();
+    private final String[] columnNames = {"Course Code", "Course Name", "Grade"};
+    
+    public EnrolledCoursesTableModel(ArrayList<Course> courses, Map<String, String> grades) {
+        this.courses = courses;
+        this.grades = grades;
+    }
+    
+    // Shows the courses of a student; edits are kept for the same student's courses
+    // that are still listed and dropped for anyone else
+    public void setStudent(Student student, ArrayList<Course> courses, Map<String, String> grades) {
+        if (student != this.student) {
+            edits.clear();
+        } else {
+            Set<String> listed = new HashSet<>();
+            for (Course course : courses) {
+                listed.add(course.getCode());
+            }
+            edits.keySet().retainAll(listed);
+        }
+        this.student = student;
+        this.courses = courses;
+        this.grades = grades;
+        fireTableDataChanged();
+    }
+    
+    public Student getStudent() {
+        return student;
+    }
+    
+    public Course getCourseAt(int row) {
+        return courses.get(row);
+    }
+    
+    public void addCourse(Course course) {
+        if (courses.contains(course)) return;
+        courses.add(course);
+        fireTableRowsInserted(courses.size() - 1, courses.size() - 1);
+    }
+    
+    public void removeCourse(String courseCode) {
+        for (int row = 0; row < courses.size(); row++) {
+            if (courses.get(row).getCode().equals(courseCode)) {
+                courses.remove(row);
+                edits.remove(courseCode);
+                fireTableRowsDeleted(row, row);
+                return;
+            }
+        }
+    }
+    
+    // New saved grades; edits that now match them are no longer pending
+    public void setGrades(Map<String, String> grades) {
+        this.grades = grades;
+        edits.entrySet().removeIf(edit -> edit.getValue().equals(grades.getOrDefault(edit.getKey(), "")));
+        if (!courses.isEmpty()) {
+            fireTableRowsUpdated(0, courses.size() - 1);
+        }
+    }
+    
+    // Unsaved (course, grade) pairs; an empty grade removes the grade
+    public Map<String, String> getEdits() {
+        return new HashMap<>(edits);
+    }
+    
+    public boolean isEdited(int row) {
+        return edits.containsKey(courses.get(row).getCode());
+    }
+    
+    @Override
+    public int getRowCount() {
+        return courses.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Course course = courses.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> course.getCode();
+            case 1 -> course.getName();
+            case 2 -> edits.getOrDefault(course.getCode(), grades.getOrDefault(course.getCode(), ""));
+            default -> null;
+        };
+    }
+    
+    @Override
+    public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
+        if (columnIndex == 2) {
+            String courseCode = courses.get(rowIndex).getCode();
+            String grade = aValue == null ? "" : (String) aValue;
+            if (grade.equals(grades.getOrDefault(courseCode, ""))) {
+                edits.remove(courseCode);
+            } else {
+                edits.put(courseCode, grade);
+            }
+            fireTableCellUpdated(rowIndex, columnIndex);
+        }
+    }
+    
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex == 2;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+}
+
+// Roster of one course section with its grades for that course, plus unsaved edits by student ID
+class SectionGradesTableModel extends InstrumentedTableModel {
+    private final String[] columnNames = {"ID", "Name", "Grade"};
+    private final Map<String, String> edits = new HashMap<>();
+    private List<Student> roster = new ArrayList<>();
+    private String courseCode;
+    
+    public void setSection(String courseCode, List<Student> roster) {
+        this.courseCode = courseCode;
+        this.roster = roster;
+        edits.clear();
+        fireTableDataChanged();
+    }
+    
+    public String getCourseCode() {
+        return courseCode;
+    }
+    
+    public Map<String, String> getEdits() {
+        return new HashMap<>(edits);
+    }
+    
+    public boolean isEdited(int row) {
+        return edits.containsKey(roster.get(row).getId());
+    }
+    
+    private String savedGrade(Student student) {
+        return student.getGrades().getOrDefault(courseCode, "");
+    }
+    
+    @Override
+    public int getRowCount() {
+        return roster.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Student student = roster.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> student.getId();
+            case 1 -> student.getName();
+            case 2 -> edits.getOrDefault(student.getId(), savedGrade(student));
+            default -> null;
+        };
+    }
+    
+    @Override
+    public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
+        if (columnIndex == 2) {
+            Student student = roster.get(rowIndex);
+            String grade = aValue == null ? "" : (String) aValue;
+            if (grade.equals(savedGrade(student))) {
+                edits.remove(student.getId());
+            } else {
+                edits.put(student.getId(), grade);
+            }
+            fireTableCellUpdated(rowIndex, columnIndex);
+        }
+    }
+    
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex == 2;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+}
+
+class EditedGradeRenderer extends DefaultTableCellRenderer {
+    private final IntPredicate edited;
+    
+    public EditedGradeRenderer(IntPredicate edited) {
+        this.edited = edited;
+    }
+    
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, 
+                                                   boolean hasFocus, int row, int column) {
+        Component component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        if (edited.test(table.convertRowIndexToModel(row))) {
+            component.setFont(component.getFont().deriveFont(Font.BOLD));
+        }
+        return component;
+    }
+}
+
+class GradeCellEditor extends DefaultCellEditor {
+    public GradeCellEditor() {
+        super(new JComboBox<>(new String[]{"", "A", "B", "C", "D", "F"}));
+    }
+}
\ No newline at end of file
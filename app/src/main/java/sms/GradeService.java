@@ -0,0 +1,72 @@
+package sms;
+
+import java.util.*;
+
+// Grade entry and grade statistics, independent of any UI. Changes are deltas:
+// only the given (course, grade) pairs are written, and an empty grade removes one.
+public class GradeService {
+    private static final LatencyHistogram UPDATE = Metrics.histogram("service.grades.update");
+    private static final LatencyHistogram UPDATE_COURSE = Metrics.histogram("service.grades.updateCourse");
+    private static final LatencyHistogram SUMMARY = Metrics.histogram("service.grades.courseSummary");
+    
+    private final StudentRepository students;
+    private final GradeAnalytics analytics;
+    
+    public GradeService(StudentRepository students, GradeAnalytics analytics) {
+        this.students = students;
+        this.analytics = analytics;
+    }
+    
+    public Map<String, String> getGrades(String studentId) {
+        return student(studentId).getGrades();
+    }
+    
+    // NaN if the student has no letter grades yet
+    public double getGpa(String studentId) {
+        return analytics.getGpa(student(studentId));
+    }
+    
+    public void updateGrades(Student student, Map<String, String> changes) {
+        long start = System.nanoTime();
+        try {
+            student.updateGrades(changes);
+        } finally {
+            UPDATE.recordSince(start);
+        }
+    }
+    
+    public void updateGrades(String studentId, Map<String, String> changes) {
+        updateGrades(student(studentId), changes);
+    }
+    
+    // One transaction for a whole section; returns the number of grades that changed
+    public int updateCourseGrades(String courseCode, Map<String, String> gradesByStudentId) {
+        long start = System.nanoTime();
+        try {
+            return students.updateCourseGrades(courseCode, gradesByStudentId);
+        } finally {
+            UPDATE_COURSE.recordSince(start);
+        }
+    }
+    
+    public GradeAnalytics.CourseSummary getCourseSummary(String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return analytics.getCourseSummary(courseCode);
+        } finally {
+            SUMMARY.recordSince(start);
+        }
+    }
+    
+    public Map<String, Double> getMajorAverages() {
+        return analytics.getMajorAverages();
+    }
+    
+    private Student student(String studentId) {
+        Student student = students.findById(studentId);
+        if (student == null) {
+            throw new NoSuchElementException("Unknown student ID: " + studentId);
+        }
+        return student;
+    }
+}
@@ -0,0 +1,21 @@
+package sms;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+
+// Base for the client's table models: times how long the table and its other listeners
+// take to react to each change (histogram ui.table.<model class>), which is where a
+// full fireTableDataChanged on a large model shows up
+public abstract class InstrumentedTableModel extends AbstractTableModel {
+    private LatencyHistogram refreshes;
+    
+    @Override
+    public void fireTableChanged(TableModelEvent event) {
+        if (refreshes == null) {
+            refreshes = Metrics.histogram("ui.table." + getClass().getSimpleName());
+        }
+        long start = System.nanoTime();
+        super.fireTableChanged(event);
+        refreshes.recordSince(start);
+    }
+}
@@ -0,0 +1,248 @@
+package sms;
+
+import java.util.*;
+
+// Just enough JSON for the HTTP API: writing strings, numbers, arrays and objects,
+// and reading flat objects whose values are strings or null. ClusterRouter also
+// reads and rewrites whole responses with parse and value.
+final class Json {
+    private Json() {}
+    
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+    
+    static StringBuilder number(StringBuilder out, double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? out.append("null") : out.append(value);
+    }
+    
+    static StringBuilder strings(StringBuilder out, Collection<String> values) {
+        out.append('[');
+        boolean first = true;
+        for (String value : values) {
+            if (!first) out.append(',');
+            string(out, value);
+            first = false;
+        }
+        return out.append(']');
+    }
+    
+    static StringBuilder stringMap(StringBuilder out, Map<String, String> values) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : new TreeMap<>(values).entrySet()) {
+            if (!first) out.append(',');
+            string(out, entry.getKey()).append(':');
+            string(out, entry.getValue());
+            first = false;
+        }
+        return out.append('}');
+    }
+    
+    // Parses {"key": "value" | null, ...}; anything else is an IllegalArgumentException
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> result = new LinkedHashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                result.put(key, parser.nullableString());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return result;
+    }
+    
+    // Any JSON value: objects become LinkedHashMaps, arrays Lists, numbers Longs when
+    // integral and Doubles otherwise
+    static Object parse(String text) {
+        Parser parser = new Parser(text);
+        Object value = parser.value();
+        parser.end();
+        return value;
+    }
+    
+    // Writes a value as parse returns it
+    @SuppressWarnings("unchecked")
+    static StringBuilder value(StringBuilder out, Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Long || value instanceof Integer) {
+            return out.append(value);
+        }
+        if (value instanceof Number number) {
+            return number(out, number.doubleValue());
+        }
+        if (value instanceof String string) {
+            return string(out, string);
+        }
+        if (value instanceof List<?> list) {
+            out.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) out.append(',');
+                value(out, list.get(i));
+            }
+            return out.append(']');
+        }
+        if (value instanceof Map<?, ?> map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) map).entrySet()) {
+                if (!first) out.append(',');
+                string(out, entry.getKey()).append(':');
+                value(out, entry.getValue());
+                first = false;
+            }
+            return out.append('}');
+        }
+        throw new IllegalArgumentException("Not a JSON value: " + value.getClass().getName());
+    }
+    
+    private static class Parser {
+        private final String text;
+        private int pos;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+        
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+        
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Malformed JSON: expected '" + c + "' at " + pos);
+            }
+        }
+        
+        void end() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("Malformed JSON: trailing content at " + pos);
+            }
+        }
+        
+        Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Malformed JSON: unexpected end");
+            }
+            char c = text.charAt(pos);
+            if (c == '"') {
+                return string();
+            }
+            if (consume('{')) {
+                Map<String, Object> object = new LinkedHashMap<>();
+                if (!consume('}')) {
+                    do {
+                        String key = string();
+                        expect(':');
+                        object.put(key, value());
+                    } while (consume(','));
+                    expect('}');
+                }
+                return object;
+            }
+            if (consume('[')) {
+                List<Object> array = new ArrayList<>();
+                if (!consume(']')) {
+                    do {
+                        array.add(value());
+                    } while (consume(','));
+                    expect(']');
+                }
+                return array;
+            }
+            for (String literal : new String[] {"null", "true", "false"}) {
+                if (text.startsWith(literal, pos)) {
+                    pos += literal.length();
+                    return literal.equals("null") ? null : Boolean.valueOf(literal);
+                }
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            try {
+                return number.matches("-?\\d+") ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed JSON: bad value at " + start);
+            }
+        }
+        
+        String nullableString() {
+            skipWhitespace();
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            return string();
+        }
+        
+        String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) break;
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) break;
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> out.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Malformed JSON: unterminated string");
+        }
+    }
+}
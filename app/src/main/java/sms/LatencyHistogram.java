@@ -0,0 +1,134 @@
+package sms;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram in the style of HdrHistogram: values up to 127 ns get a bucket
+// each, and every power of two above that is split into 64 buckets, so a recorded
+// value is off by at most 1/64 (about 1.6%) whatever its magnitude. Recording is a
+// few atomic adds and never allocates; the count and percentiles are computed from
+// the buckets when a snapshot is taken. Values above about 2.4 hours land in the
+// last bucket.
+public class LatencyHistogram implements LatencyMXBean {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 43;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+    
+    public record Snapshot(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+            long p999Nanos, long maxNanos) {}
+    
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+    
+    // For the usual start = System.nanoTime(); ...; recordSince(start)
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    // Not atomic with respect to concurrent recording; a snapshot taken meanwhile may
+    // count a value in one field and not another
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            recorded += buckets[i];
+        }
+        long maxNanos = max.get();
+        double mean = recorded == 0 ? 0 : (double) total.sum() / recorded;
+        return new Snapshot(recorded, mean, percentile(buckets, recorded, 0.50, maxNanos),
+            percentile(buckets, recorded, 0.90, maxNanos), percentile(buckets, recorded, 0.99, maxNanos),
+            percentile(buckets, recorded, 0.999, maxNanos), maxNanos);
+    }
+    
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+    
+    // Highest value that falls into the bucket holding the given fraction of the counts
+    private static long percentile(long[] buckets, long recorded, double fraction, long maxNanos) {
+        if (recorded == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+    
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) return (int) value;
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        long top = Math.min(value >>> (exponent - SUB_BUCKET_BITS), 2 * SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + (int) top;
+    }
+    
+    static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+    
+    @Override
+    public long getCount() {
+        return snapshot().count();
+    }
+    
+    @Override
+    public double getMeanMicros() {
+        return snapshot().meanNanos() / 1e3;
+    }
+    
+    @Override
+    public double getP50Micros() {
+        return snapshot().p50Nanos() / 1e3;
+    }
+    
+    @Override
+    public double getP90Micros() {
+        return snapshot().p90Nanos() / 1e3;
+    }
+    
+    @Override
+    public double getP99Micros() {
+        return snapshot().p99Nanos() / 1e3;
+    }
+    
+    @Override
+    public double getP999Micros() {
+        return snapshot().p999Nanos() / 1e3;
+    }
+    
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1e3;
+    }
+}
@@ -0,0 +1,14 @@
+package sms;
+
+// JMX view of one LatencyHistogram, published by Metrics. Attributes are in
+// microseconds, which is what JConsole users read.
+public interface LatencyMXBean {
+    long getCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP90Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+    void reset();
+}
@@ -0,0 +1,99 @@
+package sms;
+
+import java.util.Objects;
+import javax.swing.*;
+import javax.swing.plaf.basic.ComboPopup;
+
+// Combo-box model that reads items from a PageSource when the combo asks for them
+// instead of copying every item into a Vector. As in PagedTableModel, the size only
+// moves with the row events fired on the EDT. Sources only grow at the end. The
+// selection is kept across inserts, updates and source changes, even while the
+// selected item is filtered out.
+public class LazyComboBoxModel<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+    private PageSource<T> source;
+    private int size;
+    private Object selected;
+    private final Object[] item = new Object[1];
+    
+    public LazyComboBoxModel(PageSource<T> source) {
+        this.source = source;
+        this.size = source.size();
+        selectFirstIfNone();
+    }
+    
+    public void setSource(PageSource<T> source) {
+        int oldSize = size;
+        this.source = source;
+        size = source.size();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (size > 0) {
+            fireIntervalAdded(this, 0, size - 1);
+        }
+    }
+    
+    // Appended rows. The size taken by setSource may already count rows whose events
+    // were still queued, so rows below it are skipped rather than counted twice.
+    public void fireRowsInserted(int firstRow, int lastRow) {
+        int first = Math.max(firstRow, size);
+        if (first > lastRow) return;
+        size += lastRow - first + 1;
+        fireIntervalAdded(this, first, lastRow);
+        selectFirstIfNone();
+    }
+    
+    public void fireRowsUpdated(int firstRow, int lastRow) {
+        fireContentsChanged(this, firstRow, lastRow);
+    }
+    
+    // For sources that only ever append: picks up the rows added since the last look
+    public void sourceGrew() {
+        int newSize = source.size();
+        if (newSize > size) {
+            fireRowsInserted(size, newSize - 1);
+        }
+    }
+    
+    @Override
+    public int getSize() {
+        return size;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getElementAt(int index) {
+        if (index < 0 || index >= size) return null;
+        source.fetch(index, index + 1, item);
+        T element = (T) item[0];
+        item[0] = null;
+        return element;
+    }
+    
+    @Override
+    public void setSelectedItem(Object anItem) {
+        if (Objects.equals(selected, anItem)) return;
+        selected = anItem;
+        fireContentsChanged(this, -1, -1);
+    }
+    
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+    
+    private void selectFirstIfNone() {
+        if (selected == null && size > 0) {
+            setSelectedItem(getElementAt(0));
+        }
+    }
+    
+    // Sizes the combo and its popup list from one prototype item; otherwise both
+    // measure every item in the model to lay themselves out
+    public static <T> void setPrototype(JComboBox<T> comboBox, T prototype) {
+        comboBox.setPrototypeDisplayValue(prototype);
+        if (comboBox.getAccessibleContext().getAccessibleChild(0) instanceof ComboPopup popup) {
+            popup.getList().setPrototypeCellValue(prototype);
+        }
+    }
+}
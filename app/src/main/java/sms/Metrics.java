@@ -0,0 +1,53 @@
+package sms;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Process-wide registry of latency histograms. Each histogram is also published as
+// the MBean sms:type=Latency,name=<name>, so JConsole or any JMX client can watch it
+// under real load. Names are dotted and grouped by layer:
+//   service.*      service calls, shared by the Swing client and the HTTP API
+//   api.*          HTTP requests by method and resource
+//   persistence.*  log fsyncs and checkpoints on the writer thread
+//   ui.*           user actions (click to result on the EDT), table refreshes and
+//                  EDT event dispatch
+// Callers on hot paths keep their histogram in a static field instead of looking it
+// up on every recording.
+public final class Metrics {
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    
+    private Metrics() {}
+    
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, Metrics::create);
+    }
+    
+    // Every histogram, sorted by name
+    public static SortedMap<String, LatencyHistogram> all() {
+        return new TreeMap<>(histograms);
+    }
+    
+    public static void resetAll() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+    
+    private static LatencyHistogram create(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(name);
+        register("sms:type=Latency,name=" + name, histogram);
+        return histogram;
+    }
+    
+    // Monitoring is best effort: a name JMX rejects leaves the metric unpublished, not broken
+    static void register(String objectName, Object bean) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(objectName));
+        } catch (JMException e) {
+            System.err.println("Could not publish " + objectName + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package sms;
+
+import java.lang.ref.Cleaner;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+// Read-only view of the model as of one moment, from StudentRepository.openSnapshot.
+// It sees the students and courses that existed then, each student in the state it
+// had then, however long the reader takes; writers carry on meanwhile and only keep
+// the states they replace while a snapshot could still need them. Reads go in chunks,
+// fetching the student references by ordinal without the repository lock.
+// Snapshots are not tied to a thread; one left unclosed is released when collected.
+public final class ModelSnapshot implements AutoCloseable {
+    private static final int CHUNK_SIZE = 1_024;
+    private static final Cleaner CLEANER = Cleaner.create();
+    
+    private final StudentRepository students;
+    private final CourseCatalog catalog;
+    private final long version;
+    private final int studentCount;
+    private final int courseCount;
+    private final Cleaner.Cleanable release;
+    private volatile boolean closed;
+    
+    ModelSnapshot(StudentRepository students, CourseCatalog catalog, long version, int studentCount,
+            int courseCount) {
+        this.students = students;
+        this.catalog = catalog;
+        this.version = version;
+        this.studentCount = studentCount;
+        this.courseCount = courseCount;
+        // The action must not reference the snapshot, or it would never be collected
+        this.release = CLEANER.register(this, () -> students.closeSnapshot(version));
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    // Number of students in the snapshot: the first size() in repository order
+    public int size() {
+        return studentCount;
+    }
+    
+    // Courses are immutable and never removed, so the first ones in the catalog are the
+    // ones the snapshot saw
+    public List<Course> getCourses() {
+        checkOpen();
+        List<Course> courses = new ArrayList<>(courseCount);
+        for (int i = 0; i < courseCount; i++) {
+            courses.add(catalog.get(i));
+        }
+        return courses;
+    }
+    
+    // The student's state as of the snapshot
+    public Student.State getState(Student student) {
+        checkOpen();
+        if (student.getRepository() != students || student.getOrdinal() >= studentCount) {
+            throw new IllegalArgumentException("Student not in snapshot: " + student.getId());
+        }
+        return student.stateAt(version);
+    }
+    
+    public void forEach(BiConsumer<Student, Student.State> action) {
+        forEach(0, studentCount, action);
+    }
+    
+    // Students from index from (inclusive) to to (exclusive), in repository order
+    public void forEach(int from, int to, BiConsumer<Student, Student.State> action) {
+        Objects.checkFromToIndex(from, to, studentCount);
+        Object[] chunk = new Object[Math.min(CHUNK_SIZE, to - from)];
+        for (int start = from; start < to; start += chunk.length) {
+            int end = Math.min(start + chunk.length, to);
+            checkOpen();
+            students.fetch(start, end, chunk);
+            for (int i = 0; i < end - start; i++) {
+                Student student = (Student) chunk[i];
+                action.accept(student, student.stateAt(version));
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        closed = true;
+        release.clean();
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot closed");
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package sms;
+
+import java.util.Arrays;
+
+// Compressed set of repository ordinals, in the style of Roaring bitmaps: ordinals
+// are split into 65536-wide chunks by their high 16 bits, and each chunk holds its
+// low bits as a sorted char array while it has at most 4096 of them, or as a
+// 1024-word bitmap above that. Sparse rosters stay small, dense sets (such as a
+// complement) cost 8 KB per chunk, and set operations run chunk by chunk, skipping
+// chunks that only one side has.
+//
+// Not thread-safe; CourseCatalog guards the roster bitmaps and hands out copies.
+final class OrdinalBitmap {
+    private static final int ARRAY_MAX = 4096;
+    
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    
+    // [0, count): every ordinal of a repository holding count students
+    static OrdinalBitmap range(int count) {
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        for (int start = 0; start < count; start += 1 << 16) {
+            int chunk = Math.min(1 << 16, count - start);
+            Container container;
+            if (chunk <= ARRAY_MAX) {
+                char[] values = new char[chunk];
+                for (int i = 0; i < chunk; i++) {
+                    values[i] = (char) i;
+                }
+                container = new ArrayContainer(values, chunk);
+            } else {
+                long[] words = new long[1024];
+                Arrays.fill(words, 0, chunk >>> 6, -1L);
+                if ((chunk & 63) != 0) {
+                    words[chunk >>> 6] = (1L << (chunk & 63)) - 1;
+                }
+                container = new BitmapContainer(words, chunk);
+            }
+            bitmap.append((char) (start >>> 16), container);
+        }
+        return bitmap;
+    }
+    
+    // Returns false if the ordinal was already present
+    boolean add(int ordinal) {
+        char high = (char) (ordinal >>> 16);
+        int i = indexOf(high);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, high, new ArrayContainer(new char[4], 0));
+        }
+        Container container = containers[i];
+        int before = container.cardinality();
+        containers[i] = container.add((char) ordinal);
+        return containers[i].cardinality() != before;
+    }
+    
+    // Returns false if the ordinal was not present
+    boolean remove(int ordinal) {
+        int i = indexOf((char) (ordinal >>> 16));
+        if (i < 0 || !containers[i].contains((char) ordinal)) return false;
+        
+        containers[i] = containers[i].remove((char) ordinal);
+        if (containers[i].cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        }
+        return true;
+    }
+    
+    boolean contains(int ordinal) {
+        int i = indexOf((char) (ordinal >>> 16));
+        return i >= 0 && containers[i].contains((char) ordinal);
+    }
+    
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    OrdinalBitmap copy() {
+        OrdinalBitmap copy = new OrdinalBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+    
+    OrdinalBitmap and(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    OrdinalBitmap or(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    OrdinalBitmap andNot(OrdinalBitmap other) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.appendIfNotEmpty(keys[i], containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(keys[i], containers[i].copy());
+            }
+        }
+        return result;
+    }
+    
+    // Number of members below ordinal
+    int rank(int ordinal) {
+        char high = (char) (ordinal >>> 16);
+        int rank = 0;
+        for (int i = 0; i < size && keys[i] <= high; i++) {
+            rank += keys[i] < high ? containers[i].cardinality() : containers[i].rank((char) ordinal);
+        }
+        return rank;
+    }
+    
+    // The index-th smallest member
+    int select(int index) {
+        for (int i = 0; i < size; i++) {
+            int cardinality = containers[i].cardinality();
+            if (index < cardinality) {
+                return keys[i] << 16 | containers[i].select(index);
+            }
+            index -= cardinality;
+        }
+        throw new IndexOutOfBoundsException("Index " + index + " beyond the bitmap");
+    }
+    
+    // Smallest member at or above ordinal, or -1 if there is none
+    int next(int ordinal) {
+        char high = (char) (ordinal >>> 16);
+        int i = indexOf(high);
+        if (i >= 0) {
+            int low = containers[i].next((char) ordinal);
+            if (low >= 0) return high << 16 | low;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return i < size ? keys[i] << 16 | containers[i].next((char) 0) : -1;
+    }
+    
+    int[] toArray() {
+        int[] ordinals = new int[cardinality()];
+        int filled = 0;
+        for (int i = 0; i < size; i++) {
+            filled = containers[i].fill(ordinals, filled, keys[i] << 16);
+        }
+        return ordinals;
+    }
+    
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+    
+    private void insert(int i, char high, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = high;
+        containers[i] = container;
+        size++;
+    }
+    
+    private void append(char high, Container container) {
+        insert(size, high, container);
+    }
+    
+    private void appendIfNotEmpty(char high, Container container) {
+        if (container.cardinality() > 0) {
+            append(high, container);
+        }
+    }
+    
+    // The low 16 bits of the members of one chunk. Operations may return a container
+    // of the other kind when the cardinality crosses ARRAY_MAX.
+    private abstract static class Container {
+        abstract int cardinality();
+        abstract boolean contains(char low);
+        abstract Container add(char low);
+        abstract Container remove(char low);
+        abstract Container copy();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        // Number of members below low
+        abstract int rank(char low);
+        abstract int select(int index);
+        // Smallest member at or above low, or -1
+        abstract int next(char low);
+        abstract int fill(int[] out, int offset, int base);
+    }
+    
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+        
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+        
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0) return this;
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = low;
+            cardinality++;
+            return this;
+        }
+        
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+        
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+        
+        @Override
+        Container and(Container other) {
+            return filter(other, true);
+        }
+        
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer that = (ArrayContainer) other;
+            char[] result = new char[cardinality + that.cardinality];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < cardinality || j < that.cardinality) {
+                if (j == that.cardinality || (i < cardinality && values[i] < that.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > that.values[j]) {
+                    result[count++] = that.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            return filter(other, false);
+        }
+        
+        // The values that are (or are not) in other. Two arrays are merged in one
+        // sequential pass; a binary search per value costs a cache miss per probe.
+        private ArrayContainer filter(Container other, boolean keepShared) {
+            char[] result = new char[Math.max(1, cardinality)];
+            int count = 0;
+            if (other instanceof ArrayContainer that) {
+                int j = 0;
+                for (int i = 0; i < cardinality; i++) {
+                    while (j < that.cardinality && that.values[j] < values[i]) {
+                        j++;
+                    }
+                    boolean shared = j < that.cardinality && that.values[j] == values[i];
+                    if (shared == keepShared) {
+                        result[count++] = values[i];
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i]) == keepShared) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+        
+        @Override
+        int rank(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            return i >= 0 ? i : -i - 1;
+        }
+        
+        @Override
+        int select(int index) {
+            return values[index];
+        }
+        
+        @Override
+        int next(char low) {
+            int i = rank(low);
+            return i < cardinality ? values[i] : -1;
+        }
+        
+        @Override
+        int fill(int[] out, int offset, int base) {
+            for (int i = 0; i < cardinality; i++) {
+                out[offset++] = base | values[i];
+            }
+            return offset;
+        }
+        
+        BitmapContainer toBitmap() {
+            long[] words = new long[1024];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+    
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+        
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+        
+        @Override
+        Container add(char low) {
+            if (!contains(low)) {
+                words[low >>> 6] |= 1L << low;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Container remove(char low) {
+            if (contains(low)) {
+                words[low >>> 6] &= ~(1L << low);
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+        
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+        
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] result = new long[1024];
+            long[] that = ((BitmapContainer) other).words;
+            for (int w = 0; w < 1024; w++) {
+                result[w] = words[w] & that[w];
+            }
+            return normalized(result);
+        }
+        
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer that) {
+                for (int i = 0; i < that.cardinality; i++) {
+                    result[that.values[i] >>> 6] |= 1L << that.values[i];
+                }
+            } else {
+                long[] that = ((BitmapContainer) other).words;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] |= that[w];
+                }
+            }
+            return normalized(result);
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer that) {
+                for (int i = 0; i < that.cardinality; i++) {
+                    result[that.values[i] >>> 6] &= ~(1L << that.values[i]);
+                }
+            } else {
+                long[] that = ((BitmapContainer) other).words;
+                for (int w = 0; w < 1024; w++) {
+                    result[w] &= ~that[w];
+                }
+            }
+            return normalized(result);
+        }
+        
+        @Override
+        int rank(char low) {
+            int rank = 0;
+            int word = low >>> 6;
+            for (int w = 0; w < word; w++) {
+                rank += Long.bitCount(words[w]);
+            }
+            return rank + Long.bitCount(words[word] & ((1L << low) - 1));
+        }
+        
+        @Override
+        int select(int index) {
+            for (int w = 0; w < 1024; w++) {
+                int count = Long.bitCount(words[w]);
+                if (index < count) {
+                    long word = words[w];
+                    for (int k = 0; k < index; k++) {
+                        word &= word - 1;
+                    }
+                    return w << 6 | Long.numberOfTrailingZeros(word);
+                }
+                index -= count;
+            }
+            throw new IndexOutOfBoundsException();
+        }
+        
+        @Override
+        int next(char low) {
+            int w = low >>> 6;
+            long word = words[w] & (-1L << low);
+            while (word == 0) {
+                if (++w == 1024) return -1;
+                word = words[w];
+            }
+            return w << 6 | Long.numberOfTrailingZeros(word);
+        }
+        
+        @Override
+        int fill(int[] out, int offset, int base) {
+            for (int w = 0; w < 1024; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[offset++] = base | w << 6 | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+        
+        private static Container normalized(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_MAX ? bitmap.toArrayContainer() : bitmap;
+        }
+        
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int count = 0;
+            for (int w = 0; w < 1024; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[count++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
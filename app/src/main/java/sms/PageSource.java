@@ -0,0 +1,9 @@
+package sms;
+
+public interface PageSource<T> {
+    // Total number of rows, supplied separately from the row data
+    int size();
+    
+    // Copies rows [from, to) into out, starting at out[0]
+    void fetch(int from, int to, Object[] out);
+}
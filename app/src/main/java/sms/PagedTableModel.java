@@ -0,0 +1,115 @@
+package sms;
+
+import java.util.Arrays;
+
+// Table model that only materializes the pages the table actually asks for.
+// Pages live in a bounded ring so scrolling a huge table keeps memory flat.
+// The row count only moves with the events fired on the EDT, so the table never
+// sees rows that a background writer added before their event arrived.
+public abstract class PagedTableModel<T> extends InstrumentedTableModel {
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_CACHED_PAGES = 16;
+    
+    private PageSource<T> source;
+    private Object[][] pages = new Object[0][];
+    private final int[] loadedPages = new int[MAX_CACHED_PAGES];
+    private int nextSlot;
+    private int rowCount;
+    
+    protected PagedTableModel(PageSource<T> source) {
+        setSource(source);
+    }
+    
+    public final void setSource(PageSource<T> source) {
+        this.source = source;
+        invalidate();
+    }
+    
+    // Swaps the source without dropping pages; callers follow up with a row-level event
+    protected final void replaceSource(PageSource<T> source) {
+        this.source = source;
+    }
+    
+    // Drops every cached page; rows are fetched again on next access
+    public void invalidate() {
+        rowCount = source.size();
+        pages = new Object[(rowCount + PAGE_SIZE - 1) / PAGE_SIZE][];
+        Arrays.fill(loadedPages, -1);
+        nextSlot = 0;
+    }
+    
+    // Row-level notifications; only the pages at or after the change are dropped
+    public void fireRowsInserted(int firstRow, int lastRow) {
+        rowCount += lastRow - firstRow + 1;
+        dropPagesFrom(firstRow);
+        fireTableRowsInserted(firstRow, lastRow);
+    }
+    
+    public void fireRowsUpdated(int firstRow, int lastRow) {
+        fireTableRowsUpdated(firstRow, lastRow);
+    }
+    
+    public void fireRowsDeleted(int firstRow, int lastRow) {
+        rowCount -= lastRow - firstRow + 1;
+        dropPagesFrom(firstRow);
+        fireTableRowsDeleted(firstRow, lastRow);
+    }
+    
+    private void dropPagesFrom(int row) {
+        int pageCount = (rowCount + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (pageCount != pages.length) {
+            pages = Arrays.copyOf(pages, pageCount);
+        }
+        for (int i = row / PAGE_SIZE; i < pages.length; i++) {
+            pages[i] = null;
+        }
+    }
+    
+    // null for a row outside the current row count, e.g. one the source has but whose
+    // event has not arrived yet; the count and the cached pages stay as they are
+    @SuppressWarnings("unchecked")
+    public T getRowAt(int row) {
+        if (row < 0 || row >= rowCount) return null;
+        
+        int pageIndex = row / PAGE_SIZE;
+        Object[] page = pages[pageIndex];
+        if (page == null) {
+            page = loadPage(pageIndex);
+            // Prefetch the next page so scrolling forward does not stall on a boundary
+            if (pageIndex + 1 < pages.length && pages[pageIndex + 1] == null) {
+                loadPage(pageIndex + 1);
+            }
+        }
+        return (T) page[row - pageIndex * PAGE_SIZE];
+    }
+    
+    private Object[] loadPage(int pageIndex) {
+        int from = pageIndex * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, rowCount);
+        Object[] page = new Object[to - from];
+        source.fetch(from, to, page);
+        
+        int evicted = loadedPages[nextSlot];
+        if (evicted >= 0 && evicted < pages.length) {
+            pages[evicted] = null;
+        }
+        loadedPages[nextSlot] = pageIndex;
+        nextSlot = (nextSlot + 1) % MAX_CACHED_PAGES;
+        
+        pages[pageIndex] = page;
+        return page;
+    }
+    
+    protected abstract Object getColumnValue(T row, int columnIndex);
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRowAt(rowIndex);
+        return row == null ? null : getColumnValue(row, columnIndex);
+    }
+}
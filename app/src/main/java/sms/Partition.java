@@ -0,0 +1,36 @@
+package sms;
+
+// One of count partitions of the student model in a cluster (see ClusterRouter).
+// Students are assigned by a hash of their ID; String.hashCode is fixed by the
+// language spec, so every JVM agrees on the owner.
+public record Partition(int index, int count) {
+    public Partition {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Partition must be i/n with 0 <= i < n, got " + index + "/" + count);
+        }
+    }
+    
+    // "i/n", as on the command line
+    public static Partition parse(String spec) {
+        int slash = spec.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Partition must be i/n, got " + spec);
+        }
+        return new Partition(Integer.parseInt(spec.substring(0, slash)), Integer.parseInt(spec.substring(slash + 1)));
+    }
+    
+    public static int of(String studentId, int count) {
+        // Spread the bits first: IDs like S001, S002 differ only in their last characters
+        int hash = studentId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), count);
+    }
+    
+    public boolean owns(String studentId) {
+        return of(studentId, count) == index;
+    }
+    
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,298 @@
+package sms;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+// Durable storage for the student/course model.
+// Every mutation is appended to a write-ahead log segment by a background writer
+// that fsyncs once per batch (group commit). Every SNAPSHOT_INTERVAL records the
+// model is captured under the repository lock, the log rolls to a new segment and a
+// snapshot is written; older segments are then deleted. Recovery loads the
+// snapshot and replays only the segments written after it. Records are encoded by
+// ChangeLog, the same format replication streams. If the writer fails, nothing more
+// is queued or saved; getFailure reports why, and the model carries on in memory.
+public class PersistenceEngine {
+    private static final int SNAPSHOT_INTERVAL = 50_000;
+    private static final LatencyHistogram FSYNC = Metrics.histogram("persistence.fsync");
+    private static final LatencyHistogram CHECKPOINT = Metrics.histogram("persistence.checkpoint");
+    
+    private final Path directory;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private CourseCatalog courses;
+    private StudentRepository students;
+    
+    private long segment;
+    private OutputStream log;
+    private FileOutputStream logFile;
+    private int recordsSinceSnapshot;
+    private boolean snapshotPending;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    
+    public PersistenceEngine(Path directory) {
+        this.directory = directory;
+        this.writer = new Thread(this::writeLoop, "persistence-writer");
+        this.writer.setDaemon(true);
+    }
+    
+    // Loads the latest snapshot and replays the log tail; returns false if there was nothing to load.
+    // Only the last segment may end in a torn or corrupt record, as a crash while
+    // appending leaves; it is cut off here, before start opens the next segment, so it
+    // is not taken for corruption in the middle of the log by later recoveries. Anything
+    // else unreadable fails recovery instead of silently skipping the rest of the log.
+    public boolean recover(CourseCatalog courses, StudentRepository students) throws IOException {
+        this.courses = courses;
+        this.students = students;
+        Files.createDirectories(directory);
+        
+        long firstSegment = 0;
+        boolean found = false;
+        Path snapshot = directory.resolve("snapshot.dat");
+        if (Files.exists(snapshot)) {
+            firstSegment = readSnapshot(snapshot, courses, students);
+            found = true;
+        }
+        
+        List<Long> segments = listSegments();
+        for (long s : segments) {
+            if (s >= firstSegment) {
+                Path file = segmentPath(s);
+                long size = Files.size(file);
+                long intact = replaySegment(file);
+                found |= intact > 0;
+                if (intact < size) {
+                    if (s != segments.get(segments.size() - 1)) {
+                        throw new IOException("Corrupt record at byte " + intact + " of " + file
+                            + ", which is followed by later segments");
+                    }
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(intact);
+                        channel.force(true);
+                    }
+                }
+            }
+            segment = Math.max(segment, s + 1);
+        }
+        segment = Math.max(segment, firstSegment);
+        return found;
+    }
+    
+    // Starts logging; call after recovery and any initial data load
+    public void start() throws IOException {
+        openSegment();
+        students.addListener(new ChangeLog.Encoder(this::append));
+        writer.start();
+    }
+    
+    // Writes a snapshot of the current model. The model snapshot is opened and queued
+    // while the read lock is held, so it lands exactly between the log records before
+    // and after it; the copying happens later, on the writer thread.
+    public void checkpoint() {
+        students.readLocked(() -> failure == null && queue.add(new Checkpoint(students.openSnapshot())));
+    }
+    
+    // The error that stopped the writer, or null while changes are being saved
+    public IOException getFailure() {
+        return failure;
+    }
+    
+    // Flushes everything still queued and stops the writer
+    public void close() {
+        closed = true;
+        queue.add(Shutdown.INSTANCE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Called by the ChangeLog encoder on the mutating thread, in commit order
+    private void append(byte[] record) {
+        if (!closed && failure == null) {
+            queue.add(record);
+        }
+    }
+    
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                
+                boolean dirty = false;
+                for (Object item : batch) {
+                    if (item instanceof byte[] record) {
+                        writeRecord(record);
+                        dirty = true;
+                    } else if (item instanceof Checkpoint checkpoint) {
+                        syncLog(dirty);
+                        dirty = false;
+                        writeCheckpoint(checkpoint);
+                    } else if (item == Shutdown.INSTANCE) {
+                        syncLog(dirty);
+                        log.close();
+                        return;
+                    }
+                }
+                syncLog(dirty);
+                batch.clear();
+                
+                if (recordsSinceSnapshot >= SNAPSHOT_INTERVAL && !snapshotPending) {
+                    snapshotPending = true;
+                    checkpoint();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            fail(e, batch);
+        }
+    }
+    
+    // Set under the write lock, which append and checkpoint run under too, so nothing
+    // is queued after the queue is cleared; queued checkpoints release their snapshots
+    private void fail(IOException error, List<Object> batch) {
+        students.writeLocked(() -> {
+            failure = error;
+            queue.drainTo(batch);
+            queue.clear();
+        });
+        for (Object item : batch) {
+            if (item instanceof Checkpoint checkpoint) {
+                checkpoint.snapshot().close();
+            }
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+    }
+    
+    private void writeRecord(byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        writeInt(log, record.length);
+        writeInt(log, (int) crc.getValue());
+        log.write(record);
+        recordsSinceSnapshot++;
+    }
+    
+    // Group commit: one fsync covers every record in the batch
+    private void syncLog(boolean dirty) throws IOException {
+        if (!dirty) return;
+        long start = System.nanoTime();
+        log.flush();
+        logFile.getChannel().force(false);
+        FSYNC.recordSince(start);
+    }
+    
+    private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+        long start = System.nanoTime();
+        // Everything after this point belongs to the new segment
+        log.close();
+        segment++;
+        openSegment();
+        
+        Path tmp = directory.resolve("snapshot.tmp");
+        try (ModelSnapshot snapshot = checkpoint.snapshot()) {
+            List<Student> copies = new ArrayList<>(snapshot.size());
+            // Copies share the snapshot's immutable states, so this only costs one object per student
+            snapshot.forEach((student, state) -> copies.add(student.detachedCopy(state)));
+            ColumnarSnapshot.write(tmp, snapshot.getCourses(), copies, segment);
+        }
+        Files.move(tmp, directory.resolve("snapshot.dat"),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        for (long s : listSegments()) {
+            if (s < segment) {
+                Files.deleteIfExists(segmentPath(s));
+            }
+        }
+        recordsSinceSnapshot = 0;
+        snapshotPending = false;
+        CHECKPOINT.recordSince(start);
+    }
+    
+    private void openSegment() throws IOException {
+        logFile = new FileOutputStream(segmentPath(segment).toFile(), true);
+        log = new BufferedOutputStream(logFile, 1 << 16);
+    }
+    
+    private Path segmentPath(long s) {
+        return directory.resolve(String.format("wal-%010d.log", s));
+    }
+    
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(4, name.length() - 4)));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    private static long readSnapshot(Path file, CourseCatalog courses, StudentRepository students) throws IOException {
+        ColumnarSnapshot snapshot = ColumnarSnapshot.open(file);
+        for (Course course : snapshot.getCourses()) {
+            courses.add(course);
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            students.add(snapshot.readStudent(i));
+        }
+        return snapshot.getFirstSegment();
+    }
+    
+    // Replays records until the end of the segment or the first torn/corrupt record, and
+    // returns the length of the intact records. A length that is not positive or runs
+    // past the end of the file ends them, like a bad checksum, before anything is
+    // allocated for it; so does a last record that does not decode.
+    private long replaySegment(Path file) throws IOException {
+        long intact = 0;
+        long remaining = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (remaining >= 8) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                remaining -= 8;
+                if (length <= 0 || length > remaining) break;
+                
+                byte[] record = new byte[length];
+                in.readFully(record);
+                remaining -= length;
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) break;
+                try {
+                    ChangeLog.apply(record, courses, students);
+                } catch (EOFException e) {
+                    if (remaining == 0) break;
+                    throw e;
+                }
+                intact += 8 + length;
+            }
+        }
+        return intact;
+    }
+    
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+    
+    private record Checkpoint(ModelSnapshot snapshot) {}
+    
+    private enum Shutdown { INSTANCE }
+}
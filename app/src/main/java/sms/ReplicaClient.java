@@ -0,0 +1,94 @@
+package sms;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.function.Consumer;
+
+// Follows a primary's ReplicationServer, applying its snapshot and then its change
+// stream, in order, to a Backend.replica() model on one thread. Reads on the replica
+// see the primary's committed changes a little later, never out of order. There is no
+// resume: a replica that loses its primary stops following and has to be restarted,
+// which fetches a fresh snapshot.
+public class ReplicaClient {
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    
+    private final Backend backend;
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private DataInputStream in;
+    private volatile long appliedSequence;
+    
+    public ReplicaClient(Backend backend, String host, int port) {
+        if (!backend.isReadOnly()) {
+            throw new IllegalArgumentException("Replication needs a Backend.replica()");
+        }
+        this.backend = backend;
+        this.host = host;
+        this.port = port;
+    }
+    
+    // "host:port"
+    public static ReplicaClient of(Backend backend, String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + address);
+        }
+        return new ReplicaClient(backend, address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+    
+    // Connects and applies the primary's snapshot; returns once the replica holds it
+    public void connect() throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        while (readAndApply()) {
+            // Snapshot records
+        }
+    }
+    
+    // Applies the change stream on a daemon thread until the connection ends, then
+    // passes the reason to onLost
+    public void follow(Consumer<IOException> onLost) {
+        Thread follower = new Thread(() -> {
+            try {
+                while (true) {
+                    readAndApply();
+                }
+            } catch (IOException e) {
+                onLost.accept(e);
+            }
+        }, "replica-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+    
+    // Sequence number of the last change applied; the primary counts from its start
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+    
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+    
+    // Returns false at the end-of-snapshot marker
+    private boolean readAndApply() throws IOException {
+        long sequence = in.readLong();
+        int length = in.readInt();
+        if (length == ReplicationServer.END_OF_SNAPSHOT) {
+            appliedSequence = sequence;
+            return false;
+        }
+        byte[] record = new byte[length];
+        in.readFully(record);
+        ChangeLog.apply(record, backend.getCourses(), backend.getStudents());
+        appliedSequence = sequence;
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package sms;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Streams this node's change log to read replicas (ReplicaClient) over TCP. A replica
+// that connects first gets the model as of one ModelSnapshot, as course and student
+// records, then every change committed after that snapshot, in commit order. Changes
+// are encoded by ChangeLog under the write lock and handed to one queue and sender
+// thread per replica, so a slow replica never holds up writers; one that falls more
+// than MAX_BACKLOG records behind is dropped and has to re-sync.
+//
+// Frames are: long sequence, int length, record bytes. The snapshot frames carry the
+// sequence the snapshot was taken at, and a frame of length -1 ends the snapshot.
+// Courses are not repository events: new ones are sent before the next change, and
+// at least once a second.
+public class ReplicationServer {
+    static final int END_OF_SNAPSHOT = -1;
+    private static final int MAX_BACKLOG = 1_000_000;
+    private static final long COURSE_POLL_MS = 1_000;
+    
+    private record Frame(long sequence, byte[] record) {}
+    
+    private final CourseCatalog courses;
+    private final StudentRepository students;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Records sent so far; guarded by the repository write lock
+    private long sequence;
+    private volatile boolean stopped;
+    
+    public ReplicationServer(Backend backend, int port) throws IOException {
+        this.courses = backend.getCourses();
+        this.students = backend.getStudents();
+        this.server = new ServerSocket();
+        server.bind(new InetSocketAddress(port));
+        this.acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+    }
+    
+    public void start() {
+        students.addListener(new ChangeLog.Encoder(this::publish));
+        acceptor.start();
+    }
+    
+    public int getPort() {
+        return server.getLocalPort();
+    }
+    
+    public int getReplicaCount() {
+        return subscribers.size();
+    }
+    
+    public void stop() {
+        stopped = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnect();
+        }
+    }
+    
+    // Called by the encoder under the write lock, so sequence numbers follow commit order
+    private void publish(byte[] record) {
+        Frame frame = new Frame(++sequence, record);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+    
+    private void acceptLoop() {
+        while (!stopped) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                // Snapshot and subscription are taken together under the read lock, so the
+                // first streamed change is the first one the snapshot does not include
+                Subscriber subscriber = students.readLocked(() -> {
+                    Subscriber added = new Subscriber(socket, students.openSnapshot(), sequence);
+                    subscribers.add(added);
+                    return added;
+                });
+                Thread sender = new Thread(subscriber::run, "replication-sender-" + socket.getRemoteSocketAddress());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!stopped) {
+                    System.err.println("Replication accept failed: " + e);
+                }
+            }
+        }
+    }
+    
+    private class Subscriber {
+        private final Socket socket;
+        private final ModelSnapshot snapshot;
+        private final long snapshotSequence;
+        private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<>();
+        private volatile boolean dropped;
+        private int sentCourses;
+        private long sentSequence;
+        
+        Subscriber(Socket socket, ModelSnapshot snapshot, long snapshotSequence) {
+            this.socket = socket;
+            this.snapshot = snapshot;
+            this.snapshotSequence = snapshotSequence;
+        }
+        
+        void offer(Frame frame) {
+            if (queue.size() >= MAX_BACKLOG) {
+                System.err.println("Replica " + socket.getRemoteSocketAddress() + " fell " + MAX_BACKLOG
+                    + " changes behind; dropping it");
+                disconnect();
+            } else if (!dropped) {
+                queue.add(frame);
+            }
+        }
+        
+        void disconnect() {
+            dropped = true;
+            subscribers.remove(this);
+            queue.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        
+        void run() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+                sendSnapshot(out);
+                List<Frame> batch = new ArrayList<>();
+                while (!dropped) {
+                    Frame first = queue.poll(COURSE_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch);
+                    }
+                    // Any course a change in the batch refers to was added before the change
+                    // was committed, so it is in the catalog by now
+                    sendNewCourses(out);
+                    for (Frame frame : batch) {
+                        write(out, frame.sequence(), frame.record());
+                    }
+                    batch.clear();
+                    out.flush();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                if (!dropped && !stopped) {
+                    System.err.println("Replica " + socket.getRemoteSocketAddress() + " disconnected: " + e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Already closed unless sending the snapshot failed
+                snapshot.close();
+                disconnect();
+            }
+        }
+        
+        private void sendSnapshot(DataOutputStream out) throws IOException {
+            try (snapshot) {
+                List<Course> snapshotCourses = snapshot.getCourses();
+                for (Course course : snapshotCourses) {
+                    write(out, snapshotSequence, ChangeLog.addCourse(course));
+                }
+                sentCourses = snapshotCourses.size();
+                snapshot.forEach((student, state) -> {
+                    try {
+                        write(out, snapshotSequence, ChangeLog.addStudent(student, state));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            out.writeLong(snapshotSequence);
+            out.writeInt(END_OF_SNAPSHOT);
+            out.flush();
+        }
+        
+        private void sendNewCourses(DataOutputStream out) throws IOException {
+            int count = courses.size();
+            while (sentCourses < count) {
+                write(out, sentSequence, ChangeLog.addCourse(courses.get(sentCourses++)));
+            }
+        }
+        
+        private void write(DataOutputStream out, long frameSequence, byte[] record) throws IOException {
+            out.writeLong(frameSequence);
+            out.writeInt(record.length);
+            out.write(record);
+            sentSequence = frameSequence;
+        }
+    }
+}
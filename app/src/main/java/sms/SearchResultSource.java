@@ -0,0 +1,32 @@
+package sms;
+
+import java.util.*;
+
+// Search results in repository order, addressed by row like the full repository
+class SearchResultSource implements PageSource<Student> {
+    private final List<Student> found;
+    private final int[] ordinals;
+    
+    public SearchResultSource(List<Student> found) {
+        this.found = found;
+        this.ordinals = found.stream().mapToInt(Student::getOrdinal).toArray();
+    }
+    
+    @Override
+    public int size() {
+        return found.size();
+    }
+    
+    // Row of the student, or -1 if not among the results
+    public int rowOf(Student student) {
+        int row = Arrays.binarySearch(ordinals, student.getOrdinal());
+        return row >= 0 ? row : -1;
+    }
+    
+    @Override
+    public void fetch(int from, int to, Object[] out) {
+        for (int row = from; row < to; row++) {
+            out[row - from] = found.get(row);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sms;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Maps repeated strings (course codes, grades, majors) to dense int IDs and back, so
+// students can store them as small integers and share one String per value. IDs are
+// handed out in first-seen order and never reused; they only mean something inside
+// the running process and are never persisted. Lookups are lock-free.
+final class StringDictionary {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int capacity;
+    private volatile String[] values = new String[16];
+    private int size;
+    
+    StringDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    // ID of value, adding it if there is room; -1 if the dictionary is full
+    int add(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : register(value);
+    }
+    
+    // ID of value, or -1 if it was never added
+    int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+    
+    String get(int id) {
+        return values[id];
+    }
+    
+    // The shared instance equal to value, for values that are kept as strings
+    String intern(String value) {
+        if (value == null) return null;
+        int id = add(value);
+        return id < 0 ? value : get(id);
+    }
+    
+    // The value is stored before its ID is published, so any ID a reader can see resolves
+    private synchronized int register(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        if (size == capacity) return -1;
+        
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        ids.put(value, size);
+        return size++;
+    }
+}
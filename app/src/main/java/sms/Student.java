@@ -0,0 +1,637 @@
+package sms;
+
+import java.io.Serializable;
+import java.util.*;
+
+// Thread-safe: all mutable fields live in one immutable State that is swapped
+// atomically. Readers take the current State without locking, so they never block
+// writers and always see a student's enrollments and grades from the same moment.
+// Writers are serialized (see write), which keeps repository events in the order
+// the changes were made. While a ModelSnapshot is open, replaced states are kept in
+// a short history so the snapshot can still read them (see stateAt).
+//
+// State is compact: course codes, grades and majors are shared dictionary values,
+// and a student's courses are one sorted int array of course IDs, each carrying an
+// enrollment bit and a grade ID in its low byte. The Set and Map handed out are
+// read-only views over that array.
+public class Student implements Serializable {
+    static final StringDictionary COURSE_CODES = new StringDictionary(1 << 23);
+    static final StringDictionary MAJORS = new StringDictionary(Integer.MAX_VALUE);
+    // Grade IDs 1..126 fit in the entry byte next to the enrollment bit
+    static final StringDictionary GRADES = new StringDictionary(126);
+    
+    private final String id;
+    private volatile State state;
+    // States replaced while a snapshot was open, newest first; null otherwise
+    private transient volatile Superseded history;
+    private transient StudentRepository repository;
+    private transient int ordinal = -1;
+    
+    // A replaced state and the version of the write that replaced it. The link to older
+    // entries is only ever cut, at entries no open snapshot can reach any more.
+    private static final class Superseded {
+        final State state;
+        final long replacedAt;
+        Superseded older;
+        
+        Superseded(State state, long replacedAt, Superseded older) {
+            this.state = state;
+            this.replacedAt = replacedAt;
+            this.older = older;
+        }
+    }
+    
+    // Immutable point-in-time view of a student
+    public static final class State implements Serializable {
+        private static final int[] NO_COURSES = new int[0];
+        private static final int ENROLLED = 0x80;
+        private static final int GRADE_MASK = 0x7F;
+        // The grade did not fit the dictionary and is kept in otherGrades
+        private static final int OTHER_GRADE = 0x7F;
+        
+        private final String name;
+        private final String email;
+        private final String major;
+        // (course ID << 8) | enrollment bit | grade ID + 1, sorted by course ID;
+        // a course appears if the student is enrolled in it or has a grade for it
+        private final int[] entries;
+        private final Map<String, String> otherGrades;
+        
+        private State(String name, String email, String major, int[] entries, Map<String, String> otherGrades) {
+            this.name = name;
+            this.email = email;
+            this.major = major;
+            this.entries = entries;
+            this.otherGrades = otherGrades;
+        }
+        
+        static State of(String name, String email, String major, 
+                        Collection<String> enrolledCourses, Map<String, String> grades) {
+            Editor editor = new Editor(new State(name, email, major, NO_COURSES, null));
+            for (String courseCode : enrolledCourses) {
+                editor.setEnrolled(courseCode, true);
+            }
+            editor.replaceGrades(grades);
+            return editor.build(name, email, major);
+        }
+        
+        public String name() { return name; }
+        public String email() { return email; }
+        public String major() { return major; }
+        
+        public Set<String> enrolledCourses() {
+            return new EnrolledCourses(this);
+        }
+        
+        public Map<String, String> grades() {
+            return new Grades(this);
+        }
+        
+        boolean isEnrolled(String courseCode) {
+            int i = indexOf(entries, entries.length, Student.COURSE_CODES.find(courseCode));
+            return i >= 0 && (entries[i] & ENROLLED) != 0;
+        }
+        
+        String grade(String courseCode) {
+            int i = indexOf(entries, entries.length, Student.COURSE_CODES.find(courseCode));
+            return i < 0 ? null : gradeAt(i);
+        }
+        
+        private String codeAt(int i) {
+            return Student.COURSE_CODES.get(entries[i] >>> 8);
+        }
+        
+        private String gradeAt(int i) {
+            int grade = entries[i] & GRADE_MASK;
+            if (grade == 0) return null;
+            return grade == OTHER_GRADE ? otherGrades.get(codeAt(i)) : Student.GRADES.get(grade - 1);
+        }
+        
+        State withProfile(String name, String email, String major) {
+            return new State(name, email, Student.MAJORS.intern(major), entries, otherGrades);
+        }
+        
+        State withEnrollment(String courseCode, boolean enrolled) {
+            Editor editor = new Editor(this);
+            editor.setEnrolled(courseCode, enrolled);
+            return editor.build(name, email, major);
+        }
+        
+        State withGrades(Map<String, String> grades) {
+            Editor editor = new Editor(this);
+            editor.replaceGrades(grades);
+            return editor.build(name, email, major);
+        }
+        
+        // Binary search on the course ID part of the entries
+        private static int indexOf(int[] entries, int size, int courseId) {
+            if (courseId < 0) return -1;
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = entries[mid] >>> 8;
+                if (midId < courseId) {
+                    low = mid + 1;
+                } else if (midId > courseId) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State other && Objects.equals(name, other.name) 
+                && Objects.equals(email, other.email) && Objects.equals(major, other.major)
+                && enrolledCourses().equals(other.enrolledCourses()) && grades().equals(other.grades());
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, email, major, enrolledCourses(), grades());
+        }
+        
+        @Override
+        public String toString() {
+            return "State[name=" + name + ", email=" + email + ", major=" + major 
+                + ", enrolledCourses=" + enrolledCourses() + ", grades=" + grades() + "]";
+        }
+        
+        // Serialized by value, since dictionary IDs are only valid in this process
+        private Object writeReplace() {
+            return new SerializedState(name, email, major, new HashSet<>(enrolledCourses()), new HashMap<>(grades()));
+        }
+    }
+    
+    private record SerializedState(String name, String email, String major, 
+                                   Set<String> enrolledCourses, Map<String, String> grades) implements Serializable {
+        private Object readResolve() {
+            return State.of(name, email, major, enrolledCourses, grades);
+        }
+    }
+    
+    // Mutable working copy of a State's entries; builds the next State
+    private static final class Editor {
+        private int[] entries;
+        private int size;
+        private Map<String, String> otherGrades;
+        
+        Editor(State state) {
+            entries = state.entries.clone();
+            size = entries.length;
+            otherGrades = state.otherGrades == null ? null : new HashMap<>(state.otherGrades);
+        }
+        
+        void setEnrolled(String courseCode, boolean enrolled) {
+            int i = entry(courseCode);
+            entries[i] = enrolled ? entries[i] | State.ENROLLED : entries[i] & ~State.ENROLLED;
+        }
+        
+        // Sets or, for null, removes one grade; returns the previous grade
+        String setGrade(String courseCode, String grade) {
+            int i = entry(courseCode);
+            int flags = entries[i] & 0xFF;
+            String previous = null;
+            if ((flags & State.GRADE_MASK) == State.OTHER_GRADE) {
+                previous = otherGrades.remove(courseCode);
+            } else if ((flags & State.GRADE_MASK) != 0) {
+                previous = Student.GRADES.get((flags & State.GRADE_MASK) - 1);
+            }
+            
+            int gradeBits = 0;
+            if (grade != null) {
+                int gradeId = Student.GRADES.add(grade);
+                if (gradeId < 0) {
+                    if (otherGrades == null) {
+                        otherGrades = new HashMap<>();
+                    }
+                    otherGrades.put(Student.COURSE_CODES.get(entries[i] >>> 8), grade);
+                    gradeBits = State.OTHER_GRADE;
+                } else {
+                    gradeBits = gradeId + 1;
+                }
+            }
+            entries[i] = (entries[i] & ~State.GRADE_MASK) | gradeBits;
+            return previous;
+        }
+        
+        // Drops every grade, then sets the given ones; null values are skipped
+        void replaceGrades(Map<String, String> grades) {
+            for (int i = 0; i < size; i++) {
+                entries[i] &= ~State.GRADE_MASK;
+            }
+            otherGrades = null;
+            for (Map.Entry<String, String> grade : grades.entrySet()) {
+                if (grade.getValue() != null) {
+                    setGrade(grade.getKey(), grade.getValue());
+                }
+            }
+        }
+        
+        // Index of the course's entry, inserted with no flags if it is new
+        private int entry(String courseCode) {
+            int courseId = Student.COURSE_CODES.add(courseCode);
+            if (courseId < 0) {
+                throw new IllegalStateException("Too many distinct course codes");
+            }
+            int i = State.indexOf(entries, size, courseId);
+            if (i >= 0) return i;
+            
+            i = -i - 1;
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(4, size * 2));
+            }
+            System.arraycopy(entries, i, entries, i + 1, size - i);
+            entries[i] = courseId << 8;
+            size++;
+            return i;
+        }
+        
+        // Entries with neither an enrollment nor a grade are dropped
+        State build(String name, String email, String major) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if ((entries[i] & 0xFF) != 0) {
+                    entries[kept++] = entries[i];
+                }
+            }
+            int[] compact = kept == 0 ? State.NO_COURSES : Arrays.copyOf(entries, kept);
+            return new State(name, email, Student.MAJORS.intern(major), compact, 
+                otherGrades == null || otherGrades.isEmpty() ? null : Map.copyOf(otherGrades));
+        }
+    }
+    
+    private static final class EnrolledCourses extends AbstractSet<String> {
+        private final State state;
+        
+        EnrolledCourses(State state) {
+            this.state = state;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String courseCode && state.isEnrolled(courseCode);
+        }
+        
+        @Override
+        public int size() {
+            int count = 0;
+            for (int entry : state.entries) {
+                if ((entry & State.ENROLLED) != 0) count++;
+            }
+            return count;
+        }
+        
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+                
+                private int advance(int from) {
+                    while (from < state.entries.length && (state.entries[from] & State.ENROLLED) == 0) {
+                        from++;
+                    }
+                    return from;
+                }
+                
+                @Override
+                public boolean hasNext() {
+                    return next < state.entries.length;
+                }
+                
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    String courseCode = state.codeAt(next);
+                    next = advance(next + 1);
+                    return courseCode;
+                }
+            };
+        }
+    }
+    
+    private static final class Grades extends AbstractMap<String, String> {
+        private final State state;
+        
+        Grades(State state) {
+            this.state = state;
+        }
+        
+        @Override
+        public String get(Object key) {
+            return key instanceof String courseCode ? state.grade(courseCode) : null;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+        
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (int entry : state.entries) {
+                        if ((entry & State.GRADE_MASK) != 0) count++;
+                    }
+                    return count;
+                }
+                
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+                        
+                        private int advance(int from) {
+                            while (from < state.entries.length && (state.entries[from] & State.GRADE_MASK) == 0) {
+                                from++;
+                            }
+                            return from;
+                        }
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return next < state.entries.length;
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Map.Entry<String, String> entry = Map.entry(state.codeAt(next), state.gradeAt(next));
+                            next = advance(next + 1);
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+    
+    public Student(String id, String name, String email, String major) {
+        this(id, name, email, major, Set.of(), Map.of());
+    }
+    
+    // Used by loaders that already have the full enrollment and grade state
+    Student(String id, String name, String email, String major, 
+            Set<String> enrolledCourses, Map<String, String> grades) {
+        this.id = id;
+        this.state = State.of(name, email, major, enrolledCourses, grades);
+    }
+    
+    // Getters and setters
+    public String getId() { return id; }
+    public String getName() { return state.name(); }
+    public void setName(String name) {
+        write(() -> {
+            State current = state;
+            replaceState(current.withProfile(name, current.email(), current.major()));
+            if (repository != null) {
+                repository.studentUpdated(this);
+            }
+        });
+    }
+    public String getEmail() { return state.email(); }
+    public void setEmail(String email) {
+        write(() -> {
+            State current = state;
+            replaceState(current.withProfile(current.name(), email, current.major()));
+            if (repository != null) {
+                repository.emailChanged(this, current.email());
+            }
+        });
+    }
+    public String getMajor() { return state.major(); }
+    public void setMajor(String major) {
+        write(() -> {
+            State current = state;
+            replaceState(current.withProfile(current.name(), current.email(), major));
+            if (repository != null) {
+                repository.majorChanged(this, current.major());
+            }
+        });
+    }
+    
+    // Replaces name, email and major together, announced as a single update
+    public void updateProfile(String name, String email, String major) {
+        write(() -> {
+            State current = state;
+            replaceState(current.withProfile(name, email, major));
+            if (repository != null) {
+                repository.profileChanged(this, current.email(), current.major());
+            }
+        });
+    }
+    
+    // Both return immutable snapshots; use enrollInCourse/setGrades/updateGrades to change them
+    public Set<String> getEnrolledCourses() { return state.enrolledCourses(); }
+    public Map<String, String> getGrades() { return state.grades(); }
+    public void setGrades(Map<String, String> grades) {
+        write(() -> {
+            State current = state;
+            replaceState(current.withGrades(grades));
+            if (repository != null) {
+                repository.gradesChanged(this);
+            }
+        });
+    }
+    
+    // Applies only the given (course, grade) pairs; a null or empty grade removes the grade
+    public void updateGrades(Map<String, String> changes) {
+        write(() -> {
+            Map<String, String> applied = applyGradeChanges(changes);
+            if (!applied.isEmpty() && repository != null) {
+                repository.gradesUpdated(this, applied);
+            }
+        });
+    }
+    
+    // Swaps in the new grades and returns the pairs that actually changed; callers hold the write lock
+    Map<String, String> applyGradeChanges(Map<String, String> changes) {
+        State current = state;
+        Editor editor = new Editor(current);
+        Map<String, String> applied = new HashMap<>();
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            String grade = change.getValue() == null ? "" : change.getValue();
+            String previous = editor.setGrade(change.getKey(), grade.isEmpty() ? null : grade);
+            if (!grade.equals(previous == null ? "" : previous)) {
+                applied.put(change.getKey(), grade);
+            }
+        }
+        if (!applied.isEmpty()) {
+            replaceState(editor.build(current.name(), current.email(), current.major()));
+        }
+        return applied;
+    }
+    
+    // Enrolls in every given course in one state change and returns the courses the
+    // student was not enrolled in before; callers hold the write lock
+    List<String> applyEnrollments(Collection<String> courseCodes) {
+        State current = state;
+        Editor editor = null;
+        List<String> enrolled = new ArrayList<>();
+        for (String courseCode : courseCodes) {
+            if (current.isEnrolled(courseCode) || enrolled.contains(courseCode)) continue;
+            if (editor == null) {
+                editor = new Editor(current);
+            }
+            editor.setEnrolled(courseCode, true);
+            enrolled.add(courseCode);
+        }
+        if (editor != null) {
+            replaceState(editor.build(current.name(), current.email(), current.major()));
+        }
+        return enrolled;
+    }
+    
+    public State getState() { return state; }
+    
+    // The state as of a snapshot version: the oldest state replaced after it, or the
+    // current one. state is read before history, and writers push history before
+    // swapping state, so a state newer than the version is always found in history.
+    State stateAt(long version) {
+        State result = state;
+        for (Superseded entry = history; entry != null && entry.replacedAt > version; entry = entry.older) {
+            result = entry.state;
+        }
+        return result;
+    }
+    
+    // Callers hold the write lock
+    private void replaceState(State next) {
+        StudentRepository owner = repository;
+        if (owner != null) {
+            long version = owner.nextVersion();
+            long oldest = owner.getOldestSnapshotVersion();
+            if (oldest < version) {
+                if (history == null) {
+                    owner.retainingHistory(this);
+                }
+                trimHistory(oldest);
+                history = new Superseded(state, version, history);
+            }
+        }
+        state = next;
+    }
+    
+    // Drops the states that no snapshot at or after oldestVersion can read; returns
+    // false if none are left. Callers hold the write lock.
+    boolean trimHistory(long oldestVersion) {
+        Superseded entry = history;
+        if (entry == null || entry.replacedAt <= oldestVersion) {
+            history = null;
+            return false;
+        }
+        while (entry.older != null && entry.older.replacedAt > oldestVersion) {
+            entry = entry.older;
+        }
+        entry.older = null;
+        return true;
+    }
+    
+    // Independent copy with the given state, not attached to any repository
+    Student detachedCopy(State copied) {
+        return new Student(id, copied.name(), copied.email(), copied.major(), 
+            copied.enrolledCourses(), copied.grades());
+    }
+    
+    void setRepository(StudentRepository repository, int ordinal) {
+        this.repository = repository;
+        this.ordinal = ordinal;
+    }
+    
+    // Dense position of this student in its repository, -1 if not stored yet
+    int getOrdinal() { return ordinal; }
+    
+    StudentRepository getRepository() { return repository; }
+    
+    public boolean isEnrolledIn(String courseCode) {
+        return state.isEnrolled(courseCode);
+    }
+    
+    // Returns false if the student was already enrolled
+    public boolean enrollInCourse(String courseCode) {
+        boolean[] enrolled = new boolean[1];
+        write(() -> {
+            State current = state;
+            if (current.isEnrolled(courseCode)) return;
+            
+            replaceState(current.withEnrollment(courseCode, true));
+            enrolled[0] = true;
+            if (repository != null) {
+                repository.studentEnrolled(this, courseCode);
+            }
+        });
+        return enrolled[0];
+    }
+    
+    // Returns false if the student was not enrolled; grades for the course are kept
+    public boolean dropCourse(String courseCode) {
+        boolean[] dropped = new boolean[1];
+        write(() -> {
+            State current = state;
+            if (!current.isEnrolled(courseCode)) return;
+            
+            replaceState(current.withEnrollment(courseCode, false));
+            dropped[0] = true;
+            if (repository != null) {
+                repository.studentDropped(this, courseCode);
+            }
+        });
+        return dropped[0];
+    }
+    
+    // Students in a repository are written under its write lock, which also orders
+    // their events with every other change (and lets batch updates span students);
+    // detached students only need their own monitor
+    private void write(Runnable change) {
+        StudentRepository owner = repository;
+        if (owner != null) {
+            owner.writeLocked(change);
+        } else {
+            synchronized (this) {
+                change.run();
+            }
+        }
+    }
+    
+    public String getDetailedInfo() {
+        StringBuilder sb = new StringBuilder(256);
+        appendDetailedInfo(sb, state);
+        return sb.toString();
+    }
+    
+    // Appends the same text as getDetailedInfo for the given state of this student,
+    // courses sorted by code, so batch writers can reuse one buffer for many students
+    void appendDetailedInfo(StringBuilder sb, State state) {
+        sb.append("Student ID: ").append(id).append("\n");
+        sb.append("Name: ").append(state.name()).append("\n");
+        sb.append("Email: ").append(state.email()).append("\n");
+        sb.append("Major: ").append(state.major()).append("\n\n");
+        
+        sb.append("Enrolled Courses:\n");
+        String[] courseCodes = state.enrolledCourses().toArray(new String[0]);
+        if (courseCodes.length == 0) {
+            sb.append("  No courses enrolled\n");
+        } else {
+            Arrays.sort(courseCodes);
+            for (String courseCode : courseCodes) {
+                sb.append("  - ").append(courseCode);
+                String grade = state.grade(courseCode);
+                if (grade != null) {
+                    sb.append(" (Grade: ").append(grade).append(")");
+                }
+                sb.append("\n");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return state.name() + " (" + id + ")";
+    }
+}
\ No newline at end of file
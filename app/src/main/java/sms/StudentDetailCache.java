@@ -0,0 +1,144 @@
+package sms;
+
+import java.util.*;
+
+// Rendered Student.getDetailedInfo text for the students viewed most recently, at
+// most capacity of them, least recently viewed evicted first. An entry is keyed by
+// the student and remembers the State it was rendered from; every profile,
+// enrollment or grade change replaces that State, so a stale entry can never be
+// served, and the repository events for those changes drop the student's entry at
+// once. Rendering happens outside the cache's lock; one that a change overtakes is
+// returned but not cached.
+// Published by the client as the MBean sms:type=Cache,name=studentDetails.
+public class StudentDetailCache implements StudentDetailCacheMXBean {
+    private record Entry(Student.State state, String text) {}
+    
+    private final int capacity;
+    private final Map<Student, Entry> entries;
+    // Guarded by this
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    public StudentDetailCache(StudentRepository students, int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Student, Entry> eldest) {
+                if (size() <= StudentDetailCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+        // Fired under the repository write lock; invalidating is a map removal
+        students.addListener(new StudentRepositoryListener() {
+            @Override
+            public void studentUpdated(Student student) {
+                invalidate(student);
+            }
+            
+            @Override
+            public void studentEnrolled(Student student, String courseCode) {
+                invalidate(student);
+            }
+            
+            @Override
+            public void studentDropped(Student student, String courseCode) {
+                invalidate(student);
+            }
+            
+            // Also called for gradesUpdated
+            @Override
+            public void gradesChanged(Student student) {
+                invalidate(student);
+            }
+            
+            @Override
+            public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+                synchronized (StudentDetailCache.this) {
+                    for (Student student : grades.keySet()) {
+                        invalidateLocked(student);
+                    }
+                }
+            }
+        });
+    }
+    
+    public String getDetailedInfo(Student student) {
+        Student.State state = student.getState();
+        synchronized (this) {
+            Entry entry = entries.get(student);
+            if (entry != null && entry.state() == state) {
+                hits++;
+                return entry.text();
+            }
+            misses++;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        student.appendDetailedInfo(sb, state);
+        String text = sb.toString();
+        synchronized (this) {
+            // Not if the student changed meanwhile; the next lookup renders the new state
+            if (student.getState() == state) {
+                entries.put(student, new Entry(state, text));
+            }
+        }
+        return text;
+    }
+    
+    private synchronized void invalidate(Student student) {
+        invalidateLocked(student);
+    }
+    
+    private void invalidateLocked(Student student) {
+        if (entries.remove(student) != null) {
+            invalidations++;
+        }
+    }
+    
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+    
+    @Override
+    public synchronized long getHitCount() {
+        return hits;
+    }
+    
+    @Override
+    public synchronized long getMissCount() {
+        return misses;
+    }
+    
+    @Override
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+    
+    @Override
+    public synchronized long getInvalidationCount() {
+        return invalidations;
+    }
+    
+    // Resets the counters; cached entries stay
+    @Override
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+    }
+}
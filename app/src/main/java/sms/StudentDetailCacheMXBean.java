@@ -0,0 +1,13 @@
+package sms;
+
+// JMX view of a StudentDetailCache; the hit rate is hits over lookups, 0 before any
+public interface StudentDetailCacheMXBean {
+    int getCapacity();
+    int getSize();
+    long getHitCount();
+    long getMissCount();
+    double getHitRate();
+    long getEvictionCount();
+    long getInvalidationCount();
+    void resetCounters();
+}
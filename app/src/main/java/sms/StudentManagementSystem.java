@@ -0,0 +1,350 @@
+package sms;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Future;
+import javax.swing.*;
+
+// Swing client for the Backend services. Command line:
+//   [--port N]           also serve the HTTP API on port N
+//   [--diagnostics]      add a Diagnostics tab with latencies and EDT stalls
+//   --headless --port N  serve only the HTTP API, without a window
+// Cluster nodes (see ClusterRouter), all headless:
+//   [--partition i/n]         hold only the students of partition i of n
+//   [--replication-port N]    stream changes to replicas connecting on port N
+//   --replica-of host:port    read-only replica of the node replicating on that port
+//   --route "p0,p0r1;p1,..."  route the HTTP API over the partitions' host:port nodes
+// Latencies and EDT stalls are always recorded and published over JMX (see Metrics).
+public class StudentManagementSystem extends JFrame {
+    private static final long EDT_STALL_THRESHOLD_MS = 100;
+    private static final int PERSISTENCE_CHECK_MS = 1_000;
+    private static final String USAGE = "Usage: StudentManagementSystem [--headless] [--port N] [--diagnostics]"
+        + " [--partition i/n] [--replication-port N] [--replica-of host:port] [--route topology]"
+        + " [--synthetic students[,courses[,seed]]]";
+    
+    private final Backend backend;
+    private final CourseCatalog courses;
+    private final StudentRepository students;
+    private final JTabbedPane tabbedPane = new JTabbedPane();
+    private final CsvTransfer csvTransfer;
+    private final ApiServer apiServer;
+    private final EdtWatchdog watchdog;
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final javax.swing.Timer persistenceTimer = new javax.swing.Timer(PERSISTENCE_CHECK_MS, e -> checkPersistence());
+    private EnrollmentPanel enrollmentPanel;
+    private CourseGradebookPanel gradebookPanel;
+    
+    // watchdog is null unless the Diagnostics tab is wanted
+    public StudentManagementSystem(Backend backend, ApiServer apiServer, EdtWatchdog watchdog) {
+        this.backend = backend;
+        this.courses = backend.getCourses();
+        this.students = backend.getStudents();
+        this.csvTransfer = new CsvTransfer(courses, students, SwingUtilities::invokeLater);
+        this.apiServer = apiServer;
+        this.watchdog = watchdog;
+        setupGUI();
+    }
+    
+    private void setupGUI() {
+        setTitle("Student Management System");
+        setSize(800, 600);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        
+        StudentPanel studentPanel = new StudentPanel(students, backend.getStudentService(), backend.getDetailCache(),
+            backend.getQueryEngine());
+        enrollmentPanel = new EnrollmentPanel(students, courses, backend.getEnrollmentService());
+        GradePanel gradePanel = new GradePanel(students, courses, backend.getGradeService(), 
+            backend.getStudentService());
+        gradebookPanel = new CourseGradebookPanel(students, courses, backend.getAnalytics());
+        
+        tabbedPane.addTab("Student Management", studentPanel);
+        tabbedPane.addTab("Course Enrollment", enrollmentPanel);
+        tabbedPane.addTab("Grade Management", gradePanel);
+        tabbedPane.addTab("Course Gradebook", gradebookPanel);
+        if (watchdog != null) {
+            tabbedPane.addTab("Diagnostics", new DiagnosticsPanel(watchdog, backend.getDetailCache()));
+        }
+        
+        add(tabbedPane);
+        
+        // Status bar for background imports and exports
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        progressBar.setVisible(false);
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(progressBar, BorderLayout.EAST);
+        add(statusPanel, BorderLayout.SOUTH);
+        
+        setJMenuBar(createMenuBar());
+        persistenceTimer.start();
+        
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                persistenceTimer.stop();
+                csvTransfer.shutdown();
+                if (apiServer != null) {
+                    apiServer.stop();
+                }
+                backend.close();
+            }
+        });
+    }
+    
+    // A failed log writer stops saving but not editing, so the user is told once
+    private void checkPersistence() {
+        IOException failure = backend.getPersistenceFailure();
+        if (failure == null) return;
+        
+        persistenceTimer.stop();
+        statusLabel.setText("Changes are no longer saved: " + failure.getMessage());
+        JOptionPane.showMessageDialog(this, "Changes can no longer be saved to disk:\n" + failure.getMessage(),
+            "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    private JMenuBar createMenuBar() {
+        JMenu fileMenu = new JMenu("File");
+        addMenuItem(fileMenu, "Import Students...", () -> runTransfer(true, csvTransfer::importStudents, false));
+        addMenuItem(fileMenu, "Import Courses...", () -> runTransfer(true, csvTransfer::importCourses, true));
+        addMenuItem(fileMenu, "Import Enrollments and Grades...", () -> runTransfer(true, csvTransfer::importEnrollments, false));
+        fileMenu.addSeparator();
+        addMenuItem(fileMenu, "Export Roster...", () -> runTransfer(false, csvTransfer::exportStudents, false));
+        addMenuItem(fileMenu, "Export Gradebook...", () -> runTransfer(false, csvTransfer::exportGradebook, false));
+        addMenuItem(fileMenu, "Export Transcripts...", this::exportTranscripts);
+        
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(fileMenu);
+        return menuBar;
+    }
+    
+    private void addMenuItem(JMenu menu, String title, Runnable action) {
+        JMenuItem item = new JMenuItem(title);
+        item.addActionListener(e -> action.run());
+        menu.add(item);
+    }
+    
+    private interface Transfer {
+        Future<CsvTransfer.Result> start(Path file, CsvTransfer.ProgressListener progress);
+    }
+    
+    private void runTransfer(boolean open, Transfer transfer, boolean coursesChanged) {
+        JFileChooser chooser = new JFileChooser();
+        int choice = open ? chooser.showOpenDialog(this) : chooser.showSaveDialog(this);
+        if (choice != JFileChooser.APPROVE_OPTION) return;
+        
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        transfer.start(chooser.getSelectedFile().toPath(), new CsvTransfer.ProgressListener() {
+            @Override
+            public void progress(int percent, String message) {
+                progressBar.setValue(percent);
+                statusLabel.setText(message);
+            }
+            
+            @Override
+            public void finished(CsvTransfer.Result result) {
+                progressBar.setVisible(false);
+                statusLabel.setText((open ? "Import" : "Export") + " finished: " 
+                    + result.applied() + " records, " + result.rejected() + " rejected");
+                if (coursesChanged) {
+                    // Course changes are not logged, so persist them with a snapshot
+                    backend.checkpoint();
+                    enrollmentPanel.refreshCourseComboBox();
+                    gradebookPanel.refreshCourseComboBox();
+                }
+            }
+            
+            @Override
+            public void failed(Exception error) {
+                progressBar.setVisible(false);
+                statusLabel.setText(" ");
+                JOptionPane.showMessageDialog(StudentManagementSystem.this, 
+                    error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
+    // Transcripts go into part files in a chosen directory, generated on all cores
+    private void exportTranscripts() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        Path directory = chooser.getSelectedFile().toPath();
+        int total = students.size();
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        new SwingWorker<TranscriptGenerator.Result, Integer>() {
+            @Override
+            protected TranscriptGenerator.Result doInBackground() throws Exception {
+                return new TranscriptGenerator(students).generate(directory, this::publish);
+            }
+            
+            @Override
+            protected void process(java.util.List<Integer> finished) {
+                int done = finished.get(finished.size() - 1);
+                progressBar.setValue((int) (100L * done / Math.max(1, total)));
+                statusLabel.setText("Generated " + done + " transcripts");
+            }
+            
+            @Override
+            protected void done() {
+                progressBar.setVisible(false);
+                try {
+                    TranscriptGenerator.Result result = get();
+                    statusLabel.setText(String.format("Wrote %d transcripts to %d files in %d ms (%.0f per second)",
+                        result.transcripts(), result.files(), result.elapsedNanos() / 1_000_000, 
+                        result.transcriptsPerSecond()));
+                } catch (Exception e) {
+                    statusLabel.setText(" ");
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(StudentManagementSystem.this, 
+                        cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    // The value after the option at args[i]
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException(args[i] + " needs a value");
+        }
+        return args[i + 1];
+    }
+    
+    private static int number(String[] args, int i) {
+        try {
+            return Integer.parseInt(value(args, i));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(args[i] + " needs a number, got " + args[i + 1]);
+        }
+    }
+    
+    public static void main(String[] args) {
+        boolean headless = false;
+        boolean diagnostics = false;
+        int port = -1;
+        Partition partition = null;
+        int replicationPort = -1;
+        String replicaOf = null;
+        String route = null;
+        SyntheticDataset synthetic = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--headless" -> headless = true;
+                    case "--port" -> port = number(args, i++);
+                    case "--diagnostics" -> diagnostics = true;
+                    case "--partition" -> partition = Partition.parse(value(args, i++));
+                    case "--replication-port" -> replicationPort = number(args, i++);
+                    case "--replica-of" -> replicaOf = value(args, i++);
+                    case "--route" -> route = value(args, i++);
+                    case "--synthetic" -> synthetic = SyntheticDataset.parse(value(args, i++));
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Also a malformed partition or dataset
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if ((replicaOf != null || route != null) && (!headless || port < 0)) {
+            System.err.println("--replica-of and --route need --headless --port N");
+            System.exit(2);
+        }
+        if (synthetic != null && (replicaOf != null || route != null)) {
+            System.err.println("--synthetic only applies to a node that keeps its own data");
+            System.exit(2);
+        }
+        
+        if (route != null) {
+            try {
+                ClusterRouter router = new ClusterRouter(ClusterRouter.parseTopology(route), port);
+                router.start();
+                System.out.println("Cluster router listening on port " + router.getPort());
+                Runtime.getRuntime().addShutdownHook(new Thread(router::stop));
+            } catch (IOException e) {
+                System.err.println("Could not start: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        Backend backend;
+        ApiServer apiServer = null;
+        ReplicationServer replicationServer = null;
+        try {
+            if (replicaOf != null) {
+                backend = Backend.replica();
+                String primary = replicaOf;
+                ReplicaClient replica = ReplicaClient.of(backend, primary);
+                replica.connect();
+                System.out.println("Replica of " + primary + " holding " + backend.getStudents().size() + " students");
+                replica.follow(e -> {
+                    System.err.println("Lost the primary at " + primary + ": " + e);
+                    System.exit(1);
+                });
+            } else {
+                // Sample or synthetic data is only created on first start; afterwards the saved
+                // state is recovered
+                backend = Backend.open(Paths.get(System.getProperty("sms.dataDir", "data")), partition, synthetic);
+                if (synthetic != null) {
+                    System.out.println("Holding " + backend.getStudents().size() + " students and "
+                        + backend.getCourses().size() + " courses");
+                }
+            }
+            if (replicationPort >= 0) {
+                replicationServer = new ReplicationServer(backend, replicationPort);
+                replicationServer.start();
+                System.out.println("Replicating on port " + replicationServer.getPort());
+            }
+            if (port >= 0) {
+                apiServer = new ApiServer(backend, port);
+                apiServer.start();
+                System.out.println("HTTP API listening on port " + apiServer.getPort());
+            }
+        } catch (IOException e) {
+            if (headless) {
+                System.err.println("Could not start: " + e.getMessage());
+            } else {
+                JOptionPane.showMessageDialog(null, 
+                    "Could not load saved data: " + e.getMessage(), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            System.exit(1);
+            return;
+        }
+        
+        if (headless) {
+            if (apiServer == null) {
+                System.err.println("--headless needs --port");
+                System.exit(2);
+            }
+            ApiServer server = apiServer;
+            ReplicationServer replication = replicationServer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                if (replication != null) {
+                    replication.stop();
+                }
+                backend.close();
+            }));
+            return;
+        }
+        
+        ApiServer server = apiServer;
+        EdtWatchdog watchdog = EdtWatchdog.install(EDT_STALL_THRESHOLD_MS);
+        Metrics.register("sms:type=Cache,name=studentDetails", backend.getDetailCache());
+        EdtWatchdog shownWatchdog = diagnostics ? watchdog : null;
+        SwingUtilities.invokeLater(() -> {
+            StudentManagementSystem system = new StudentManagementSystem(backend, server, shownWatchdog);
+            system.setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,300 @@
+package sms;
+
+import java.awt.*;
+import java.util.*;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+public class StudentPanel extends JPanel {
+    private static final int SEARCH_LIMIT = 500;
+    
+    private final StudentService service;
+    private final StudentDetailCache detailCache;
+    private final StudentQueryEngine queries;
+    private final JTable studentTable;
+    private final StudentTableModel tableModel;
+    private final BackgroundTasks tasks = new BackgroundTasks(this, "students");
+    private final JTextField searchField = new JTextField(30);
+    private final JLabel searchStatus = new JLabel();
+    // Treats the search text as a StudentQuery, e.g. major = Physics and not enrolled CS101
+    private final JCheckBox queryMode = new JCheckBox("Query");
+    private final JButton explainButton = new JButton("Explain");
+    // Searches wait for a pause in typing; edits to the model re-run the current search
+    private final javax.swing.Timer searchTimer = new javax.swing.Timer(200, e -> search());
+    
+    public StudentPanel(StudentRepository students, StudentService service, StudentDetailCache detailCache,
+            StudentQueryEngine queries) {
+        this.service = service;
+        this.detailCache = detailCache;
+        this.queries = queries;
+        setLayout(new BorderLayout());
+        
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+        searchPanel.add(queryMode);
+        searchPanel.add(explainButton);
+        searchPanel.add(searchStatus);
+        add(searchPanel, BorderLayout.NORTH);
+        
+        searchTimer.setRepeats(false);
+        explainButton.setEnabled(false);
+        queryMode.addActionListener(e -> {
+            explainButton.setEnabled(queryMode.isSelected());
+            search();
+        });
+        explainButton.addActionListener(e -> explain());
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        
+        tableModel = new StudentTableModel(students);
+        studentTable = new JTable(tableModel);
+        
+        add(new JScrollPane(studentTable), BorderLayout.CENTER);
+        
+        students.addListener(new EdtRepositoryListener(new StudentRepositoryListener() {
+            @Override
+            public void studentAdded(Student student) {
+                refreshSearch();
+            }
+            
+            @Override
+            public void studentUpdated(Student student) {
+                refreshSearch();
+            }
+            
+            // Queries can also select by enrollments and grades
+            @Override
+            public void studentEnrolled(Student student, String courseCode) {
+                refreshQuery();
+            }
+            
+            @Override
+            public void studentDropped(Student student, String courseCode) {
+                refreshQuery();
+            }
+            
+            @Override
+            public void gradesChanged(Student student) {
+                refreshQuery();
+            }
+            
+            @Override
+            public void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+                refreshQuery();
+            }
+        }));
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        JButton addButton = new JButton("Add Student");
+        JButton updateButton = new JButton("Update Student");
+        JButton viewButton = new JButton("View Details");
+        
+        addButton.addActionListener(e -> showAddStudentDialog());
+        updateButton.addActionListener(e -> showUpdateStudentDialog());
+        viewButton.addActionListener(e -> showStudentDetails());
+        
+        buttonPanel.add(addButton);
+        buttonPanel.add(updateButton);
+        buttonPanel.add(viewButton);
+        buttonPanel.add(tasks.getBusyIndicator());
+        
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+    
+    private void search() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            tasks.run("search", () -> null, result -> {
+                tableModel.showAll();
+                searchStatus.setText("");
+            });
+            return;
+        }
+        if (queryMode.isSelected()) {
+            runQuery(query);
+            return;
+        }
+        
+        // Typing again cancels the pending search
+        tasks.run("search", () -> service.search(query, SEARCH_LIMIT), found -> {
+            tableModel.showResults(found);
+            searchStatus.setText(found.size() < SEARCH_LIMIT 
+                ? found.size() + " matching" : "First " + SEARCH_LIMIT + " matches");
+        });
+    }
+    
+    // A mistyped query only shows its error in the status, as the user is still typing
+    private void runQuery(String query) {
+        tasks.run("search", () -> queries.run(query), result -> {
+            tableModel.showQuery(result);
+            searchStatus.setText(String.format("%,d matching (%.1f ms)", result.size(), result.getElapsedNanos() / 1e6));
+        }, error -> searchStatus.setText(error.getMessage()));
+    }
+    
+    private void explain() {
+        String query = searchField.getText().trim();
+        tasks.run("explain", () -> queries.run(query), result -> {
+            JTextArea plan = new JTextArea(result.explain());
+            plan.setEditable(false);
+            plan.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            JDialog dialog = new JDialog();
+            dialog.setTitle("Query Plan");
+            dialog.add(new JScrollPane(plan));
+            dialog.pack();
+            dialog.setLocationRelativeTo(this);
+            dialog.setVisible(true);
+        });
+    }
+    
+    private void refreshSearch() {
+        if (tableModel.isFiltered()) {
+            searchTimer.restart();
+        }
+    }
+    
+    private void refreshQuery() {
+        if (tableModel.isFiltered() && queryMode.isSelected()) {
+            searchTimer.restart();
+        }
+    }
+    
+    private void showAddStudentDialog() {
+        JDialog dialog = new JDialog();
+        dialog.setTitle("Add New Student");
+        dialog.setModal(true);
+        dialog.setSize(400, 300);
+        dialog.setLayout(new GridLayout(6, 2));
+        
+        JTextField idField = new JTextField();
+        JTextField nameField = new JTextField();
+        JTextField emailField = new JTextField();
+        JTextField majorField = new JTextField();
+        
+        dialog.add(new JLabel("Student ID:"));
+        dialog.add(idField);
+        dialog.add(new JLabel("Name:"));
+        dialog.add(nameField);
+        dialog.add(new JLabel("Email:"));
+        dialog.add(emailField);
+        dialog.add(new JLabel("Major:"));
+        dialog.add(majorField);
+        
+        JButton saveButton = new JButton("Save");
+        JButton cancelButton = new JButton("Cancel");
+        
+        saveButton.addActionListener(e -> {
+            String id = idField.getText();
+            String name = nameField.getText();
+            String email = emailField.getText();
+            String major = majorField.getText();
+            // Validation errors, including a duplicate ID, come back as the failure message
+            tasks.perform("add", () -> service.addStudent(id, name, email, major), result -> {
+                dialog.dispose();
+                JOptionPane.showMessageDialog(this, "Student added successfully!");
+            });
+        });
+        
+        cancelButton.addActionListener(e -> dialog.dispose());
+        
+        dialog.add(saveButton);
+        dialog.add(cancelButton);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    private void showUpdateStudentDialog() {
+        int selectedRow = studentTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select a student to update", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        Student selectedStudent = tableModel.getRowAt(selectedRow);
+        JDialog dialog = new JDialog();
+        dialog.setTitle("Update Student");
+        dialog.setModal(true);
+        dialog.setSize(400, 300);
+        dialog.setLayout(new GridLayout(6, 2));
+        
+        JTextField idField = new JTextField(selectedStudent.getId());
+        idField.setEditable(false);
+        JTextField nameField = new JTextField(selectedStudent.getName());
+        JTextField emailField = new JTextField(selectedStudent.getEmail());
+        JTextField majorField = new JTextField(selectedStudent.getMajor());
+        
+        dialog.add(new JLabel("Student ID:"));
+        dialog.add(idField);
+        dialog.add(new JLabel("Name:"));
+        dialog.add(nameField);
+        dialog.add(new JLabel("Email:"));
+        dialog.add(emailField);
+        dialog.add(new JLabel("Major:"));
+        dialog.add(majorField);
+        
+        JButton saveButton = new JButton("Save");
+        JButton cancelButton = new JButton("Cancel");
+        
+        saveButton.addActionListener(e -> {
+            String name = nameField.getText();
+            String email = emailField.getText();
+            String major = majorField.getText();
+            tasks.perform("update", () -> service.updateStudent(selectedStudent.getId(), name, email, major), result -> {
+                dialog.dispose();
+                JOptionPane.showMessageDialog(this, "Student updated successfully!");
+            });
+        });
+        
+        cancelButton.addActionListener(e -> dialog.dispose());
+        
+        dialog.add(saveButton);
+        dialog.add(cancelButton);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    private void showStudentDetails() {
+        int selectedRow = studentTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, 
+                "Please select a student to view", 
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        Student selectedStudent = tableModel.getRowAt(selectedRow);
+        JDialog dialog = new JDialog();
+        dialog.setTitle("Student Details: " + selectedStudent.getName());
+        dialog.setSize(500, 400);
+        
+        JTextArea detailsArea = new JTextArea();
+        detailsArea.setEditable(false);
+        detailsArea.setText(detailCache.getDetailedInfo(selectedStudent));
+        
+        dialog.add(new JScrollPane(detailsArea));
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    public void refreshData() {
+        tableModel.invalidate();
+        tableModel.fireTableDataChanged();
+    }
+}
@@ -0,0 +1,421 @@
+package sms;
+
+import java.util.*;
+
+// A filter over students, parsed from text: terms joined by "and", each optionally
+// preceded by "not".
+//   id = S0000042            name ~ smith              email = ann@example.com
+//   major = Physics          major in (Physics, "Computer Science")
+//   enrolled MATH201         enrolled MATH*            (any course starting MATH)
+//   graded MATH201           grade MATH201 <= C        gpa < 2.5
+// e.g. major = Physics and grade MATH201 <= C and not enrolled CS101
+//
+// Keywords are case-insensitive. = and in compare exactly, ~ matches a substring
+// ignoring case; != is the same as not ... =. Values with spaces or punctuation go in
+// double quotes. Grades compare A > B > C > D > F; grade and gpa only consider letter
+// grades, so a student without one in the course never satisfies a grade term.
+// "not" inverts a term as is: not gpa < 2 includes students with no grades at all.
+// StudentQueryEngine decides how to evaluate a query; matches is the plain definition.
+public final class StudentQuery {
+    enum Field { ID, NAME, EMAIL, MAJOR }
+    
+    enum Comparison {
+        LT("<"), LE("<="), GT(">"), GE(">="), EQ("="), NE("!=");
+        
+        final String symbol;
+        
+        Comparison(String symbol) {
+            this.symbol = symbol;
+        }
+        
+        boolean test(double left, double right) {
+            return switch (this) {
+                case LT -> left < right;
+                case LE -> left <= right;
+                case GT -> left > right;
+                case GE -> left >= right;
+                case EQ -> left == right;
+                case NE -> left != right;
+            };
+        }
+    }
+    
+    sealed interface Term permits FieldEquals, FieldContains, Enrolled, Graded, GradeCompare, GpaCompare {
+        boolean matches(Student student, Student.State state);
+    }
+    
+    // field = value, or field in (values)
+    record FieldEquals(Field field, List<String> values) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            String value = value(field, student, state);
+            return value != null && values.contains(value);
+        }
+        
+        @Override
+        public String toString() {
+            return values.size() == 1 ? name(field) + " = " + quote(values.get(0))
+                : name(field) + " in (" + String.join(", ", values.stream().map(StudentQuery::quote).toList()) + ")";
+        }
+    }
+    
+    // field ~ text; text is lower case
+    record FieldContains(Field field, String text) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            String value = value(field, student, state);
+            return value != null && value.toLowerCase(Locale.ROOT).contains(text);
+        }
+        
+        @Override
+        public String toString() {
+            return name(field) + " ~ " + quote(text);
+        }
+    }
+    
+    // Course selectors are a code, or a prefix followed by *
+    record Enrolled(String course) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            if (!isPrefix(course)) return state.isEnrolled(course);
+            for (String code : state.enrolledCourses()) {
+                if (code.startsWith(prefix(course))) return true;
+            }
+            return false;
+        }
+        
+        @Override
+        public String toString() {
+            return "enrolled " + quote(course);
+        }
+    }
+    
+    record Graded(String course) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            if (!isPrefix(course)) {
+                String grade = state.grade(course);
+                return grade != null && !grade.isEmpty();
+            }
+            for (Map.Entry<String, String> grade : state.grades().entrySet()) {
+                if (grade.getKey().startsWith(prefix(course)) && !grade.getValue().isEmpty()) return true;
+            }
+            return false;
+        }
+        
+        @Override
+        public String toString() {
+            return "graded " + quote(course);
+        }
+    }
+    
+    // Compares grade points, 4 for an A down to 0 for an F
+    record GradeCompare(String course, Comparison comparison, int points) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            if (!isPrefix(course)) {
+                int grade = gradePoints(state.grade(course));
+                return grade >= 0 && comparison.test(grade, points);
+            }
+            for (Map.Entry<String, String> grade : state.grades().entrySet()) {
+                if (grade.getKey().startsWith(prefix(course))) {
+                    int earned = gradePoints(grade.getValue());
+                    if (earned >= 0 && comparison.test(earned, points)) return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public String toString() {
+            return "grade " + quote(course) + " " + comparison.symbol + " " + LETTERS.get(4 - points);
+        }
+    }
+    
+    record GpaCompare(Comparison comparison, double gpa) implements Term {
+        @Override
+        public boolean matches(Student student, Student.State state) {
+            int total = 0;
+            int graded = 0;
+            for (String grade : state.grades().values()) {
+                int points = gradePoints(grade);
+                if (points >= 0) {
+                    total += points;
+                    graded++;
+                }
+            }
+            return graded > 0 && comparison.test((double) total / graded, gpa);
+        }
+        
+        @Override
+        public String toString() {
+            return "gpa " + comparison.symbol + " " + gpa;
+        }
+    }
+    
+    record Condition(Term term, boolean negated) {
+        boolean matches(Student student, Student.State state) {
+            return term.matches(student, state) != negated;
+        }
+        
+        @Override
+        public String toString() {
+            return negated ? "not " + term : term.toString();
+        }
+    }
+    
+    private static final List<String> LETTERS = List.of("A", "B", "C", "D", "F");
+    
+    private final String text;
+    private final List<Condition> conditions;
+    
+    private StudentQuery(String text, List<Condition> conditions) {
+        this.text = text;
+        this.conditions = conditions;
+    }
+    
+    // Throws IllegalArgumentException, with a message for the user, if text is not a
+    // valid query. A blank query has no conditions and matches every student.
+    public static StudentQuery parse(String text) {
+        return new StudentQuery(text, new Parser(text == null ? "" : text).parse());
+    }
+    
+    public boolean matches(Student student, Student.State state) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(student, state)) return false;
+        }
+        return true;
+    }
+    
+    List<Condition> getConditions() {
+        return conditions;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    // Normalized form of the query, e.g. for logs and EXPLAIN output
+    @Override
+    public String toString() {
+        return conditions.isEmpty() ? "(all students)"
+            : String.join(" and ", conditions.stream().map(Condition::toString).toList());
+    }
+    
+    static String value(Field field, Student student, Student.State state) {
+        return switch (field) {
+            case ID -> student.getId();
+            case NAME -> state.name();
+            case EMAIL -> state.email();
+            case MAJOR -> state.major();
+        };
+    }
+    
+    static boolean isPrefix(String course) {
+        return course.endsWith("*");
+    }
+    
+    static String prefix(String course) {
+        return course.substring(0, course.length() - 1);
+    }
+    
+    // 4 for A .. 0 for F, -1 for no grade or anything else
+    private static int gradePoints(String grade) {
+        int index = grade == null ? -1 : LETTERS.indexOf(grade);
+        return index < 0 ? -1 : 4 - index;
+    }
+    
+    private static String name(Field field) {
+        return field.name().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isWordChar(value.charAt(i))) return "\"" + value + "\"";
+        }
+        return value;
+    }
+    
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-' || c == '@' || c == '*';
+    }
+    
+    // Recursive descent over words, quoted strings, operators, parentheses and commas
+    private static final class Parser {
+        private final String text;
+        private int position;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        List<Condition> parse() {
+            List<Condition> conditions = new ArrayList<>();
+            skipSpaces();
+            if (position == text.length()) return List.of();
+            do {
+                conditions.add(condition());
+                skipSpaces();
+            } while (position < text.length() && keyword("and"));
+            if (position < text.length()) {
+                throw error("Expected 'and'");
+            }
+            return List.copyOf(conditions);
+        }
+        
+        private Condition condition() {
+            boolean negated = keyword("not");
+            int start = position;
+            String word = word("a term").toLowerCase(Locale.ROOT);
+            switch (word) {
+                case "id", "name", "email", "major" -> {
+                    Field field = Field.valueOf(word.toUpperCase(Locale.ROOT));
+                    if (keyword("in")) {
+                        return new Condition(new FieldEquals(field, list()), negated);
+                    }
+                    String op = operator();
+                    return switch (op) {
+                        case "=" -> new Condition(new FieldEquals(field, List.of(value())), negated);
+                        case "!=" -> new Condition(new FieldEquals(field, List.of(value())), !negated);
+                        case "~" -> {
+                            String value = value();
+                            if (value.isEmpty()) throw error("Expected text to match");
+                            yield new Condition(new FieldContains(field, value.toLowerCase(Locale.ROOT)), negated);
+                        }
+                        default -> throw error("Expected =, !=, ~ or in after " + word);
+                    };
+                }
+                case "enrolled" -> {
+                    keyword("in");
+                    return new Condition(new Enrolled(course()), negated);
+                }
+                case "graded" -> {
+                    keyword("in");
+                    return new Condition(new Graded(course()), negated);
+                }
+                case "grade" -> {
+                    keyword("in");
+                    String course = course();
+                    Comparison comparison = comparison();
+                    int valueStart = position;
+                    String letter = value().toUpperCase(Locale.ROOT);
+                    if (!LETTERS.contains(letter)) {
+                        position = valueStart;
+                        throw error("Expected a grade A, B, C, D or F");
+                    }
+                    return new Condition(new GradeCompare(course, comparison, 4 - LETTERS.indexOf(letter)), negated);
+                }
+                case "gpa" -> {
+                    Comparison comparison = comparison();
+                    int valueStart = position;
+                    String number = value();
+                    try {
+                        return new Condition(new GpaCompare(comparison, Double.parseDouble(number)), negated);
+                    } catch (NumberFormatException e) {
+                        position = valueStart;
+                        throw error("Expected a number");
+                    }
+                }
+                default -> {
+                    position = start;
+                    throw error("Unknown term '" + word + "'; expected id, name, email, major, enrolled, graded, "
+                        + "grade or gpa");
+                }
+            }
+        }
+        
+        private Comparison comparison() {
+            String op = operator();
+            for (Comparison comparison : Comparison.values()) {
+                if (comparison.symbol.equals(op)) return comparison;
+            }
+            throw error("Expected one of < <= > >= = !=");
+        }
+        
+        private String course() {
+            String course = value();
+            if (course.isEmpty() || course.indexOf('*') >= 0 && course.indexOf('*') != course.length() - 1) {
+                throw error("Expected a course code, or a prefix followed by *");
+            }
+            return course;
+        }
+        
+        private List<String> list() {
+            expect('(');
+            List<String> values = new ArrayList<>();
+            do {
+                values.add(value());
+                skipSpaces();
+            } while (accept(','));
+            expect(')');
+            return List.copyOf(values);
+        }
+        
+        // A quoted string or a word
+        private String value() {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == '"') {
+                int end = text.indexOf('"', position + 1);
+                if (end < 0) throw error("Unterminated quote");
+                String value = text.substring(position + 1, end);
+                position = end + 1;
+                return value;
+            }
+            return word("a value");
+        }
+        
+        private String word(String expected) {
+            skipSpaces();
+            int start = position;
+            while (position < text.length() && isWordChar(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) throw error("Expected " + expected);
+            return text.substring(start, position);
+        }
+        
+        private String operator() {
+            skipSpaces();
+            int start = position;
+            while (position < text.length() && "<>=!~".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            return text.substring(start, position);
+        }
+        
+        // Consumes the keyword if it comes next as a whole word
+        private boolean keyword(String keyword) {
+            skipSpaces();
+            int end = position + keyword.length();
+            if (end <= text.length() && text.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == text.length() || !isWordChar(text.charAt(end)))) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+        
+        private boolean accept(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void expect(char c) {
+            if (!accept(c)) throw error("Expected '" + c + "'");
+        }
+        
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (position + 1) + " of the query");
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Plans and runs StudentQuery filters. Conditions an index can answer become ordinal
+// bitmaps, combined smallest first: course rosters (CourseCatalog), the ID, major and
+// email indexes (StudentRepository), and for ~ and name = the trigram postings of the
+// StudentSearchIndex, which only narrow the candidates and are checked again. An index
+// bitmap that still has to be built is only used while it is at most INDEX_RATIO
+// times the candidates found so far; beyond that, checking the candidates costs less.
+// Negated roster and exact index conditions are subtracted the same way. Every other
+// condition is checked per candidate, the most selective first, as measured on a
+// sample of the candidates; large candidate sets are checked in chunks in parallel.
+//
+// The indexes are read under the repository read lock, together with opening a
+// ModelSnapshot that the checks then read, so a result describes one moment however
+// long the checks take, and writers only wait for the index part.
+public class StudentQueryEngine {
+    private static final LatencyHistogram QUERY = Metrics.histogram("service.students.query");
+    static final int INDEX_RATIO = 8;
+    // Candidate sets at least this large are checked on every core
+    static final int PARALLEL_THRESHOLD = 32_768;
+    private static final int CHUNK_SIZE = 4_096;
+    private static final int SAMPLE_SIZE = 256;
+    
+    private final StudentRepository students;
+    private final CourseCatalog courses;
+    private final StudentSearchIndex searchIndex;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    
+    // A condition an index can answer: the number of students in its bitmap, known before
+    // building it, and whether the bitmap holds exactly the matches or a superset
+    private record IndexAccess(StudentQuery.Condition condition, String name, int size, boolean exact, boolean built,
+                               Supplier<OrdinalBitmap> bitmap) {}
+    
+    // One line of the plan; rows is -1 until known
+    private static final class Step {
+        final String operation;
+        final String condition;
+        final String access;
+        final double estimatedRows;
+        long rows;
+        
+        Step(String operation, String condition, String access, double estimatedRows, long rows) {
+            this.operation = operation;
+            this.condition = condition;
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+            this.rows = rows;
+        }
+    }
+    
+    private static final class Plan {
+        ModelSnapshot snapshot;
+        OrdinalBitmap candidates;
+        final List<Step> steps = new ArrayList<>();
+        final List<StudentQuery.Condition> checks = new ArrayList<>();
+    }
+    
+    private record Chunk(int[] matches, int count, int[] passed) {}
+    
+    public StudentQueryEngine(StudentRepository students, CourseCatalog courses, StudentSearchIndex searchIndex) {
+        this(students, courses, searchIndex, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public StudentQueryEngine(StudentRepository students, CourseCatalog courses, StudentSearchIndex searchIndex,
+            int parallelism) {
+        this.students = students;
+        this.courses = courses;
+        this.searchIndex = searchIndex;
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+    
+    // Throws IllegalArgumentException for an invalid query
+    public Result run(String query) {
+        return run(StudentQuery.parse(query));
+    }
+    
+    // Interrupting the calling thread abandons the query with a CancellationException
+    public Result run(StudentQuery query) {
+        long start = System.nanoTime();
+        try {
+            Plan plan = students.readLocked(() -> plan(query));
+            try {
+                return execute(query, plan, start);
+            } finally {
+                plan.snapshot.close();
+            }
+        } finally {
+            QUERY.recordSince(start);
+        }
+    }
+    
+    // Called under the repository read lock
+    private Plan plan(StudentQuery query) {
+        Plan plan = new Plan();
+        plan.snapshot = students.openSnapshot();
+        int studentCount = plan.snapshot.size();
+        List<IndexAccess> positive = new ArrayList<>();
+        List<IndexAccess> negative = new ArrayList<>();
+        for (StudentQuery.Condition condition : query.getConditions()) {
+            IndexAccess access = indexAccess(condition);
+            if (access == null || condition.negated() && !access.exact()) {
+                plan.checks.add(condition);
+            } else {
+                (condition.negated() ? negative : positive).add(access);
+            }
+        }
+        positive.sort(Comparator.comparingInt(IndexAccess::size));
+        negative.sort(Comparator.comparingInt(IndexAccess::size));
+        
+        OrdinalBitmap candidates = null;
+        int count = studentCount;
+        double estimate = studentCount;
+        double scale = Math.max(1, studentCount);
+        for (IndexAccess access : positive) {
+            if (candidates != null && !access.built() && access.size() > (long) INDEX_RATIO * count) {
+                plan.checks.add(access.condition());
+                continue;
+            }
+            OrdinalBitmap bitmap = access.bitmap().get();
+            estimate = candidates == null ? access.size() : estimate * access.size() / scale;
+            plan.steps.add(new Step(candidates == null ? "index" : "and", access.condition().toString(), access.name(),
+                estimate, -1));
+            candidates = candidates == null ? bitmap : candidates.and(bitmap);
+            count = candidates.cardinality();
+            plan.steps.get(plan.steps.size() - 1).rows = count;
+            if (!access.exact()) {
+                plan.checks.add(access.condition());
+            }
+        }
+        if (candidates == null) {
+            candidates = OrdinalBitmap.range(studentCount);
+            plan.steps.add(new Step("scan", "", "all students", studentCount, studentCount));
+        }
+        for (IndexAccess access : negative) {
+            if (!access.built() && access.size() > (long) INDEX_RATIO * count) {
+                plan.checks.add(access.condition());
+                continue;
+            }
+            estimate = estimate * (studentCount - access.size()) / scale;
+            candidates = candidates.andNot(access.bitmap().get());
+            count = candidates.cardinality();
+            plan.steps.add(new Step("and not", access.condition().term().toString(), access.name(), estimate, count));
+        }
+        plan.candidates = candidates;
+        return plan;
+    }
+    
+    private IndexAccess indexAccess(StudentQuery.Condition condition) {
+        if (condition.term() instanceof StudentQuery.Enrolled enrolled) {
+            List<String> codes = courseCodes(enrolled.course());
+            OrdinalBitmap rosters = courses.anyOf(codes);
+            String name = codes.size() == 1 ? "roster" : codes.size() + " rosters";
+            return new IndexAccess(condition, name, rosters.cardinality(), true, true, () -> rosters);
+        }
+        if (condition.term() instanceof StudentQuery.FieldEquals equals) {
+            List<String> values = equals.values();
+            return switch (equals.field()) {
+                case ID -> {
+                    int[] ordinals = students.ordinalsById(values);
+                    yield new IndexAccess(condition, "ID index", ordinals.length, true, false, () -> bitmap(ordinals));
+                }
+                case MAJOR -> new IndexAccess(condition, "major index", students.countByMajor(values), true, false,
+                    () -> bitmap(students.ordinalsByMajor(values)));
+                case EMAIL -> new IndexAccess(condition, "email index", students.countByEmail(values), true, false,
+                    () -> bitmap(students.ordinalsByEmail(values)));
+                case NAME -> values.size() == 1 ? trigrams(condition, values.get(0)) : null;
+            };
+        }
+        if (condition.term() instanceof StudentQuery.FieldContains contains) {
+            return trigrams(condition, contains.text());
+        }
+        return null;
+    }
+    
+    private IndexAccess trigrams(StudentQuery.Condition condition, String text) {
+        int size = searchIndex.estimateContaining(text);
+        if (size < 0) return null;
+        return new IndexAccess(condition, "trigram postings", size, false, false,
+            () -> bitmap(searchIndex.containing(text)));
+    }
+    
+    private List<String> courseCodes(String course) {
+        if (!StudentQuery.isPrefix(course)) return List.of(course);
+        String prefix = StudentQuery.prefix(course);
+        List<String> codes = new ArrayList<>();
+        for (Course candidate : courses.getAll()) {
+            if (candidate.getCode().startsWith(prefix)) {
+                codes.add(candidate.getCode());
+            }
+        }
+        return codes;
+    }
+    
+    private Result execute(StudentQuery query, Plan plan, long start) {
+        ModelSnapshot snapshot = plan.snapshot;
+        OrdinalBitmap candidates = plan.candidates;
+        int candidateCount = candidates.cardinality();
+        List<StudentQuery.Condition> checks = orderBySelectivity(plan, snapshot, candidateCount);
+        if (checks.isEmpty()) {
+            return new Result(students, query, candidates, plan.steps, snapshot, 0, 0, System.nanoTime() - start);
+        }
+        
+        int[] ordinals = candidates.toArray();
+        int chunks = (ordinals.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int threads = pool != null && ordinals.length >= PARALLEL_THRESHOLD ? parallelism : 1;
+        List<Chunk> results;
+        if (threads > 1) {
+            try {
+                results = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> check(ordinals, chunk, checks, snapshot)).toList()).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Query interrupted");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause
+                    : new IllegalStateException("Query failed", e.getCause());
+            }
+        } else {
+            results = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Query interrupted");
+                }
+                results.add(check(ordinals, chunk, checks, snapshot));
+            }
+        }
+        
+        OrdinalBitmap matches = new OrdinalBitmap();
+        long[] passed = new long[checks.size()];
+        for (Chunk chunk : results) {
+            for (int i = 0; i < chunk.count(); i++) {
+                matches.add(chunk.matches()[i]);
+            }
+            for (int k = 0; k < passed.length; k++) {
+                passed[k] += chunk.passed()[k];
+            }
+        }
+        List<Step> checkSteps = plan.steps.subList(plan.steps.size() - checks.size(), plan.steps.size());
+        for (int k = 0; k < passed.length; k++) {
+            checkSteps.get(k).rows = passed[k];
+        }
+        return new Result(students, query, matches, plan.steps, snapshot, candidateCount, threads,
+            System.nanoTime() - start);
+    }
+    
+    // Estimates each check's selectivity on an even sample of the candidates, adds the
+    // check steps to the plan and returns the checks, the most selective first
+    private List<StudentQuery.Condition> orderBySelectivity(Plan plan, ModelSnapshot snapshot, int candidateCount) {
+        if (plan.checks.isEmpty()) return List.of();
+        
+        int[] sample = new int[Math.min(SAMPLE_SIZE, candidateCount)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = plan.candidates.select((int) ((long) i * candidateCount / sample.length));
+        }
+        List<Student> sampled = students.getAll(sample);
+        List<Student.State> states = new ArrayList<>(sampled.size());
+        for (Student student : sampled) {
+            states.add(snapshot.getState(student));
+        }
+        Map<StudentQuery.Condition, Double> selectivity = new HashMap<>();
+        for (StudentQuery.Condition condition : plan.checks) {
+            int hits = 0;
+            for (int i = 0; i < sampled.size(); i++) {
+                if (condition.matches(sampled.get(i), states.get(i))) hits++;
+            }
+            // Smoothed, so a condition no sampled student meets is not taken to match nobody
+            selectivity.put(condition, (hits + 1.0) / (sample.length + 2));
+        }
+        
+        List<StudentQuery.Condition> ordered = new ArrayList<>(new LinkedHashSet<>(plan.checks));
+        ordered.sort(Comparator.comparingDouble(selectivity::get));
+        double estimate = candidateCount;
+        String access = "sampled " + sample.length;
+        for (StudentQuery.Condition condition : ordered) {
+            estimate *= selectivity.get(condition);
+            plan.steps.add(new Step("check", condition.toString(), access, estimate, -1));
+        }
+        return ordered;
+    }
+    
+    // Checks the chunk-th CHUNK_SIZE candidates; passed[k] counts those meeting checks 0..k
+    private Chunk check(int[] ordinals, int chunk, List<StudentQuery.Condition> checks, ModelSnapshot snapshot) {
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, ordinals.length);
+        List<Student> batch = students.getAll(Arrays.copyOfRange(ordinals, from, to));
+        int[] matches = new int[batch.size()];
+        int count = 0;
+        int[] passed = new int[checks.size()];
+        for (Student student : batch) {
+            Student.State state = snapshot.getState(student);
+            int k = 0;
+            while (k < passed.length && checks.get(k).matches(student, state)) {
+                passed[k++]++;
+            }
+            if (k == passed.length) {
+                matches[count++] = student.getOrdinal();
+            }
+        }
+        return new Chunk(matches, count, passed);
+    }
+    
+    private static OrdinalBitmap bitmap(int[] ordinals) {
+        int[] sorted = ordinals.clone();
+        Arrays.sort(sorted);
+        OrdinalBitmap bitmap = new OrdinalBitmap();
+        for (int ordinal : sorted) {
+            bitmap.add(ordinal);
+        }
+        return bitmap;
+    }
+    
+    // The matching students as of one moment, in repository order and addressed by row
+    // like the repository itself, so a table model can show them a page at a time.
+    // Rows show the students' current fields, which may have changed since.
+    public static final class Result implements PageSource<Student> {
+        private final StudentRepository students;
+        private final StudentQuery query;
+        private final OrdinalBitmap matches;
+        private final int size;
+        private final List<Step> steps;
+        private final int studentCount;
+        private final long version;
+        private final int checked;
+        private final int threads;
+        private final long elapsedNanos;
+        
+        private Result(StudentRepository students, StudentQuery query, OrdinalBitmap matches, List<Step> steps,
+                ModelSnapshot snapshot, int checked, int threads, long elapsedNanos) {
+            this.students = students;
+            this.query = query;
+            this.matches = matches;
+            this.size = matches.cardinality();
+            this.steps = steps;
+            this.studentCount = snapshot.size();
+            this.version = snapshot.getVersion();
+            this.checked = checked;
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public StudentQuery getQuery() {
+            return query;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        // Row of the student in this result, or -1 if it is not a match
+        public int rowOf(Student student) {
+            int ordinal = student.getOrdinal();
+            return ordinal >= 0 && matches.contains(ordinal) ? matches.rank(ordinal) : -1;
+        }
+        
+        @Override
+        public void fetch(int from, int to, Object[] out) {
+            int ordinal = matches.select(from);
+            for (int row = from; row < to; row++) {
+                out[row - from] = students.get(ordinal);
+                ordinal = matches.next(ordinal + 1);
+            }
+        }
+        
+        // Matches from offset up to limit of them
+        public List<Student> getStudents(int offset, int limit) {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            int from = Math.min(offset, size);
+            int[] ordinals = new int[(int) Math.min((long) limit, size - from)];
+            int ordinal = ordinals.length == 0 ? -1 : matches.select(from);
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = ordinal;
+                ordinal = matches.next(ordinal + 1);
+            }
+            return students.getAll(ordinals);
+        }
+        
+        // The plan as run, EXPLAIN ANALYZE style: each step with the rows the planner
+        // expected after it and the rows there were
+        public String explain() {
+            int width = "condition".length();
+            for (Step step : steps) {
+                width = Math.max(width, step.condition.length());
+            }
+            StringBuilder out = new StringBuilder();
+            out.append("Query: ").append(query).append('\n');
+            out.append(String.format("Over %,d students at snapshot version %d%n", studentCount, version));
+            String line = "%-4s %-8s %-" + width + "s  %-18s %12s %12s%n";
+            out.append(String.format(line, "step", "op", "condition", "access", "est. rows", "rows"));
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                out.append(String.format(line, i + 1, step.operation, step.condition, step.access,
+                    String.format("%,.0f", step.estimatedRows), step.rows < 0 ? "-" : String.format("%,d", step.rows)));
+            }
+            if (threads > 0) {
+                out.append(String.format("Checked %,d candidates on %d thread(s)%n", checked, threads));
+            }
+            out.append(String.format("%,d matches in %.1f ms%n", size, elapsedNanos / 1e6));
+            return out.toString();
+        }
+    }
+}
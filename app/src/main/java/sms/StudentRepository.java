@@ -0,0 +1,500 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Safe to use from any thread. Listeners are called on the mutating thread while the
+// write lock is held, so they see changes in commit order; Swing listeners should be
+// wrapped in EdtRepositoryListener.
+public class StudentRepository implements PageSource<Student> {
+    // Students by ordinal. They are only ever appended, so reads by ordinal (get, fetch,
+    // size) skip the lock and never wait behind a long write: insert fills the slot,
+    // growing into a copy when full, then publishes the array and then the count, so a
+    // reader that sees a count also sees an array holding that many students.
+    private volatile Student[] byOrdinal = new Student[16];
+    private volatile int count;
+    
+    // Primary index on ID, secondary indexes on major and email
+    private final Map<String, Student> byId = new HashMap<>();
+    private final Map<String, Set<Student>> byMajor = new HashMap<>();
+    private final Map<String, Set<Student>> byEmail = new HashMap<>();
+    private final CourseCatalog catalog;
+    private final List<StudentRepositoryListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Multi-version reads (see ModelSnapshot): every state change made under the write
+    // lock takes the next version, and open snapshots are counted per version. Students
+    // keep replaced states only while a snapshot older than the change is open.
+    private long version;
+    private final TreeMap<Long, Integer> openSnapshots = new TreeMap<>();
+    private volatile long oldestSnapshotVersion = Long.MAX_VALUE;
+    private final List<Student> retaining = new ArrayList<>();
+    
+    public StudentRepository(CourseCatalog catalog) {
+        this.catalog = catalog;
+        catalog.attach(this);
+    }
+    
+    public void add(Student student) {
+        lock.writeLock().lock();
+        try {
+            if (byId.containsKey(student.getId())) {
+                throw new IllegalArgumentException("Student ID already exists");
+            }
+            
+            insert(student);
+            for (StudentRepositoryListener listener : listeners) {
+                listener.studentAdded(student);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Adds every student whose ID is not taken yet (including by an earlier entry in the
+    // batch) and notifies listeners once for the whole batch; returns the rejected students
+    public List<Student> addAll(List<Student> batch) {
+        List<Student> added = new ArrayList<>(batch.size());
+        List<Student> rejected = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Student student : batch) {
+                if (byId.containsKey(student.getId())) {
+                    rejected.add(student);
+                } else {
+                    insert(student);
+                    added.add(student);
+                }
+            }
+            
+            if (!added.isEmpty()) {
+                for (StudentRepositoryListener listener : listeners) {
+                    listener.studentsAdded(added);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return rejected;
+    }
+    
+    private void insert(Student student) {
+        Student[] slots = byOrdinal;
+        if (count == slots.length) {
+            slots = Arrays.copyOf(slots, 2 * slots.length);
+        }
+        student.setRepository(this, count);
+        slots[count] = student;
+        byOrdinal = slots;
+        count = count + 1;
+        byId.put(student.getId(), student);
+        addToIndex(byMajor, student.getMajor(), student);
+        addToIndex(byEmail, student.getEmail(), student);
+        for (String courseCode : student.getEnrolledCourses()) {
+            catalog.studentEnrolled(student, courseCode);
+        }
+    }
+    
+    public void addListener(StudentRepositoryListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(StudentRepositoryListener listener) {
+        listeners.remove(listener);
+    }
+    
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return byId.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Student findById(String id) {
+        lock.readLock().lock();
+        try {
+            return byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Set<Student> findByMajor(String major) {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(byMajor.getOrDefault(major, Collections.emptySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Set<Student> findByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(byEmail.getOrDefault(email, Collections.emptySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Student get(int index) {
+        int size = count;
+        Student[] slots = byOrdinal;
+        return slots[Objects.checkIndex(index, size)];
+    }
+    
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    @Override
+    public void fetch(int from, int to, Object[] out) {
+        int size = count;
+        Student[] slots = byOrdinal;
+        Objects.checkFromToIndex(from, to, size);
+        System.arraycopy(slots, from, out, 0, to - from);
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    // Copy of the current student list, in ordinal order
+    public List<Student> getAll() {
+        int size = count;
+        Student[] slots = byOrdinal;
+        return new ArrayList<>(Arrays.asList(slots).subList(0, size));
+    }
+    
+    // Students at the given ordinals, in the same order
+    List<Student> getAll(int[] ordinals) {
+        List<Student> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(get(ordinal));
+        }
+        return result;
+    }
+    
+    // Secondary index lookups for StudentQueryEngine, which calls them under readLocked
+    // so that they agree with the other indexes of the same plan. Ordinals are unsorted.
+    int countByMajor(Collection<String> majors) {
+        return count(byMajor, majors);
+    }
+    
+    int[] ordinalsByMajor(Collection<String> majors) {
+        return ordinals(byMajor, majors);
+    }
+    
+    int countByEmail(Collection<String> emails) {
+        return count(byEmail, emails);
+    }
+    
+    int[] ordinalsByEmail(Collection<String> emails) {
+        return ordinals(byEmail, emails);
+    }
+    
+    int[] ordinalsById(Collection<String> ids) {
+        return ids.stream().map(byId::get).filter(Objects::nonNull).mapToInt(Student::getOrdinal).toArray();
+    }
+    
+    // Runs a read under the repository lock, so no mutation can land in the middle of it
+    <T> T readLocked(Supplier<T> read) {
+        lock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Runs a change under the write lock; Student routes all of its mutations through here
+    void writeLocked(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Point-in-time, read-only view of every student and course, for reports and exports
+    // that must not hold the lock for their whole run. Opening one is O(1); close it
+    // when done so the states it pins can be dropped.
+    public ModelSnapshot openSnapshot() {
+        lock.readLock().lock();
+        try {
+            long at = version;
+            // Readers open snapshots concurrently, so the counts need their own lock
+            synchronized (openSnapshots) {
+                openSnapshots.merge(at, 1, Integer::sum);
+                oldestSnapshotVersion = openSnapshots.firstKey();
+            }
+            return new ModelSnapshot(this, catalog, at, count, catalog.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    void closeSnapshot(long at) {
+        lock.writeLock().lock();
+        try {
+            long oldest;
+            synchronized (openSnapshots) {
+                openSnapshots.computeIfPresent(at, (key, count) -> count == 1 ? null : count - 1);
+                oldest = openSnapshots.isEmpty() ? Long.MAX_VALUE : openSnapshots.firstKey();
+                oldestSnapshotVersion = oldest;
+            }
+            retaining.removeIf(student -> !student.trimHistory(oldest));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // The three below are called by Student under the write lock
+    long nextVersion() {
+        return ++version;
+    }
+    
+    long getOldestSnapshotVersion() {
+        return oldestSnapshotVersion;
+    }
+    
+    void retainingHistory(Student student) {
+        retaining.add(student);
+    }
+    
+    // Students currently keeping replaced states for open snapshots
+    int getRetainingCount() {
+        return readLocked(retaining::size);
+    }
+    
+    // Grades a whole course section as one transaction: every ID is checked first, then
+    // all grades are applied under one write lock and announced in a single event.
+    // A null or empty grade removes it. Returns the number of students whose grade changed.
+    public int updateCourseGrades(String courseCode, Map<String, String> gradesByStudentId) {
+        lock.writeLock().lock();
+        try {
+            Map<Student, String> targets = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : gradesByStudentId.entrySet()) {
+                Student student = byId.get(entry.getKey());
+                if (student == null) {
+                    throw new IllegalArgumentException("Unknown student ID: " + entry.getKey());
+                }
+                targets.put(student, entry.getValue());
+            }
+            
+            Map<Student, String> applied = new LinkedHashMap<>();
+            for (Map.Entry<Student, String> target : targets.entrySet()) {
+                Map<String, String> change = new HashMap<>();
+                change.put(courseCode, target.getValue());
+                Map<String, String> changed = target.getKey().applyGradeChanges(change);
+                if (!changed.isEmpty()) {
+                    applied.put(target.getKey(), changed.get(courseCode));
+                }
+            }
+            
+            if (!applied.isEmpty()) {
+                Map<Student, String> event = Collections.unmodifiableMap(applied);
+                for (StudentRepositoryListener listener : listeners) {
+                    listener.courseGradesUpdated(courseCode, event);
+                }
+            }
+            return applied.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Enrolls students in courses and applies grade changes (as in Student.updateGrades)
+    // as one transaction under one write lock, announced in a single event; for imports.
+    // Every student must belong to this repository. Enrollments that already exist and
+    // grades that are unchanged are left out of the event.
+    public void enrollAll(Map<Student, ? extends Collection<String>> enrollments, Map<Student, Map<String, String>> grades) {
+        lock.writeLock().lock();
+        try {
+            for (Student student : enrollments.keySet()) {
+                checkOwned(student);
+            }
+            for (Student student : grades.keySet()) {
+                checkOwned(student);
+            }
+            
+            Map<Student, List<String>> enrolled = new LinkedHashMap<>();
+            for (Map.Entry<Student, ? extends Collection<String>> entry : enrollments.entrySet()) {
+                Student student = entry.getKey();
+                List<String> joined = student.applyEnrollments(entry.getValue());
+                for (String courseCode : joined) {
+                    catalog.studentEnrolled(student, courseCode);
+                }
+                if (!joined.isEmpty()) {
+                    enrolled.put(student, Collections.unmodifiableList(joined));
+                }
+            }
+            Map<Student, Map<String, String>> graded = new LinkedHashMap<>();
+            for (Map.Entry<Student, Map<String, String>> entry : grades.entrySet()) {
+                Map<String, String> changed = entry.getKey().applyGradeChanges(entry.getValue());
+                if (!changed.isEmpty()) {
+                    graded.put(entry.getKey(), Collections.unmodifiableMap(changed));
+                }
+            }
+            
+            if (!enrolled.isEmpty() || !graded.isEmpty()) {
+                Map<Student, List<String>> enrolledEvent = Collections.unmodifiableMap(enrolled);
+                Map<Student, Map<String, String>> gradedEvent = Collections.unmodifiableMap(graded);
+                for (StudentRepositoryListener listener : listeners) {
+                    listener.enrollmentsImported(enrolledEvent, gradedEvent);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void checkOwned(Student student) {
+        if (student.getRepository() != this) {
+            throw new IllegalArgumentException("Student " + student.getId() + " is not in this repository");
+        }
+    }
+    
+    // Called by Student when one of its fields changes
+    void majorChanged(Student student, String oldMajor) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(byMajor, oldMajor, student);
+            addToIndex(byMajor, student.getMajor(), student);
+            studentUpdated(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void emailChanged(Student student, String oldEmail) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(byEmail, oldEmail, student);
+            addToIndex(byEmail, student.getEmail(), student);
+            studentUpdated(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void profileChanged(Student student, String oldEmail, String oldMajor) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(byEmail, oldEmail, student);
+            addToIndex(byEmail, student.getEmail(), student);
+            removeFromIndex(byMajor, oldMajor, student);
+            addToIndex(byMajor, student.getMajor(), student);
+            studentUpdated(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void studentUpdated(Student student) {
+        lock.writeLock().lock();
+        try {
+            for (StudentRepositoryListener listener : listeners) {
+                listener.studentUpdated(student);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void studentEnrolled(Student student, String courseCode) {
+        lock.writeLock().lock();
+        try {
+            catalog.studentEnrolled(student, courseCode);
+            for (StudentRepositoryListener listener : listeners) {
+                listener.studentEnrolled(student, courseCode);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void studentDropped(Student student, String courseCode) {
+        lock.writeLock().lock();
+        try {
+            catalog.studentDropped(student, courseCode);
+            for (StudentRepositoryListener listener : listeners) {
+                listener.studentDropped(student, courseCode);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void gradesChanged(Student student) {
+        lock.writeLock().lock();
+        try {
+            for (StudentRepositoryListener listener : listeners) {
+                listener.gradesChanged(student);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void gradesUpdated(Student student, Map<String, String> changes) {
+        lock.writeLock().lock();
+        try {
+            Map<String, String> event = Collections.unmodifiableMap(changes);
+            for (StudentRepositoryListener listener : listeners) {
+                listener.gradesUpdated(student, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Most keys (every email) belong to a single student, so a bucket starts as an
+    // immutable singleton and only becomes a HashSet once a second student shares it
+    private static void addToIndex(Map<String, Set<Student>> index, String key, Student student) {
+        if (key == null) return;
+        index.merge(key, Set.of(student), (bucket, single) -> {
+            Set<Student> shared = bucket instanceof HashSet ? bucket : new HashSet<>(bucket);
+            shared.add(student);
+            return shared;
+        });
+    }
+    
+    private static int count(Map<String, Set<Student>> index, Collection<String> keys) {
+        int count = 0;
+        for (String key : new HashSet<>(keys)) {
+            count += index.getOrDefault(key, Set.of()).size();
+        }
+        return count;
+    }
+    
+    private static int[] ordinals(Map<String, Set<Student>> index, Collection<String> keys) {
+        int[] ordinals = new int[count(index, keys)];
+        int filled = 0;
+        for (String key : new HashSet<>(keys)) {
+            for (Student student : index.getOrDefault(key, Set.of())) {
+                ordinals[filled++] = student.getOrdinal();
+            }
+        }
+        return ordinals;
+    }
+    
+    private static void removeFromIndex(Map<String, Set<Student>> index, String key, Student student) {
+        if (key == null) return;
+        Set<Student> bucket = index.get(key);
+        if (bucket == null || !bucket.contains(student)) return;
+        
+        if (bucket instanceof HashSet) {
+            bucket.remove(student);
+        }
+        if (!(bucket instanceof HashSet) || bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
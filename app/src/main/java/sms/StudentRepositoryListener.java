@@ -0,0 +1,52 @@
+package sms;
+
+import java.util.List;
+import java.util.Map;
+
+// Row-level change notifications from StudentRepository
+public interface StudentRepositoryListener {
+    default void studentAdded(Student student) {}
+    
+    // Students appended in one batch, in ordinal order
+    default void studentsAdded(List<Student> students) {
+        for (Student student : students) {
+            studentAdded(student);
+        }
+    }
+    
+    // Name, email or major changed
+    default void studentUpdated(Student student) {}
+    
+    default void studentEnrolled(Student student, String courseCode) {}
+    
+    default void studentDropped(Student student, String courseCode) {}
+    
+    // The whole grade map was replaced
+    default void gradesChanged(Student student) {}
+    
+    // Only these grades changed; an empty grade means it was removed
+    default void gradesUpdated(Student student, Map<String, String> changes) {
+        gradesChanged(student);
+    }
+    
+    // One batch of enrollments and grade changes applied as a single transaction, e.g.
+    // a chunk of an import: the courses each student newly joined, and the grades that
+    // changed (as in gradesUpdated)
+    default void enrollmentsImported(Map<Student, List<String>> enrolled, Map<Student, Map<String, String>> grades) {
+        for (Map.Entry<Student, List<String>> entry : enrolled.entrySet()) {
+            for (String courseCode : entry.getValue()) {
+                studentEnrolled(entry.getKey(), courseCode);
+            }
+        }
+        for (Map.Entry<Student, Map<String, String>> entry : grades.entrySet()) {
+            gradesUpdated(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    // One section-wide grading transaction, student to new grade
+    default void courseGradesUpdated(String courseCode, Map<Student, String> grades) {
+        for (Map.Entry<Student, String> entry : grades.entrySet()) {
+            gradesUpdated(entry.getKey(), Map.of(courseCode, entry.getValue()));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package sms;
+
+import java.util.*;
+
+// Search-as-you-type over ID, name, email and major. Every field is indexed by its
+// trigrams and by the one- and two-character prefixes of its words; posting lists hold
+// repository ordinals. A query token of three or more characters matches anywhere in
+// a field, a shorter one only at the start of a word, and a student must match every
+// token. The search walks the shortest posting list among the query's grams in ordinal
+// order and checks each candidate against its current fields, stopping at the limit.
+//
+// Edits only append postings for the new values; postings left behind by old values
+// fail the check and are skipped. Kept current from repository events under the
+// repository write lock; searches take only this index's monitor, never the
+// repository lock, so a search cannot deadlock with a writer notifying the index.
+public class StudentSearchIndex implements StudentRepositoryListener {
+    // Open-addressed gram -> postings table; grams are looked up tens of times per
+    // student, which boxed Long keys would make the bulk of the indexing cost
+    private long[] keys = new long[1 << 12];
+    private Postings[] values = new Postings[1 << 12];
+    private int gramCount;
+    private final List<Student> byOrdinal = new ArrayList<>();
+    
+    // Ordinals of the students containing one gram, in insertion order until sorted
+    private static class Postings {
+        int[] ordinals = new int[2];
+        int size;
+        boolean sorted = true;
+        
+        // Students are indexed one at a time, so repeats within a student are adjacent
+        void add(int ordinal) {
+            if (size > 0) {
+                int last = ordinals[size - 1];
+                if (last == ordinal) return;
+                if (last > ordinal) sorted = false;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+        
+        void sort() {
+            if (sorted) return;
+            Arrays.sort(ordinals, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ordinals[unique - 1] != ordinals[i]) {
+                    ordinals[unique++] = ordinals[i];
+                }
+            }
+            size = unique;
+            sorted = true;
+        }
+    }
+    
+    public StudentSearchIndex(StudentRepository students) {
+        students.readLocked(() -> {
+            studentsAdded(students.getAll());
+            students.addListener(this);
+            return null;
+        });
+    }
+    
+    // Ordinals of up to limit matching students, ascending; empty for a blank query
+    public synchronized int[] search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) return new int[0];
+        
+        Postings shortest = null;
+        for (String token : tokens) {
+            for (long gram : grams(token)) {
+                Postings candidates = values[slot(gram)];
+                if (candidates == null) return new int[0];
+                if (shortest == null || candidates.size < shortest.size) {
+                    shortest = candidates;
+                }
+            }
+        }
+        
+        shortest.sort();
+        int[] found = new int[Math.min(limit, shortest.size)];
+        int count = 0;
+        for (int i = 0; i < shortest.size && count < found.length; i++) {
+            int ordinal = shortest.ordinals[i];
+            if (matches(byOrdinal.get(ordinal), tokens)) {
+                found[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+    
+    // For StudentQueryEngine: the shortest posting list among the trigrams of text, a
+    // superset of the students with a field containing text. Null if text is shorter
+    // than a trigram, as shorter grams only index word starts.
+    synchronized int[] containing(String text) {
+        if (text.length() < 3) return null;
+        Postings shortest = shortestTrigramPostings(text);
+        if (shortest == null) return new int[0];
+        shortest.sort();
+        return Arrays.copyOf(shortest.ordinals, shortest.size);
+    }
+    
+    // Length of that list, before removing repeats; -1 if text is shorter than a trigram
+    synchronized int estimateContaining(String text) {
+        if (text.length() < 3) return -1;
+        Postings shortest = shortestTrigramPostings(text);
+        return shortest == null ? 0 : shortest.size;
+    }
+    
+    private Postings shortestTrigramPostings(String text) {
+        String normalized = normalize(text);
+        Postings shortest = null;
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            Postings postings = values[slot(key(normalized, i, 3))];
+            if (postings == null) return null;
+            if (shortest == null || postings.size < shortest.size) {
+                shortest = postings;
+            }
+        }
+        return shortest;
+    }
+    
+    public synchronized int size() {
+        return byOrdinal.size();
+    }
+    
+    @Override
+    public synchronized void studentAdded(Student student) {
+        byOrdinal.add(student);
+        index(student);
+    }
+    
+    @Override
+    public synchronized void studentsAdded(List<Student> added) {
+        for (Student student : added) {
+            studentAdded(student);
+        }
+    }
+    
+    @Override
+    public synchronized void studentUpdated(Student student) {
+        index(student);
+    }
+    
+    private void index(Student student) {
+        Student.State state = student.getState();
+        int ordinal = student.getOrdinal();
+        for (String field : fields(student, state)) {
+            if (field == null) continue;
+            
+            String text = normalize(field);
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                posting(key(text, i, 3)).add(ordinal);
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (isWordStart(text, i)) {
+                    posting(key(text, i, 1)).add(ordinal);
+                    if (i + 1 < text.length() && Character.isLetterOrDigit(text.charAt(i + 1))) {
+                        posting(key(text, i, 2)).add(ordinal);
+                    }
+                }
+            }
+        }
+    }
+    
+    private Postings posting(long key) {
+        int slot = slot(key);
+        if (values[slot] == null) {
+            if (2 * (gramCount + 1) > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            values[slot] = new Postings();
+            gramCount++;
+        }
+        return values[slot];
+    }
+    
+    // Slot holding key, or the empty slot where it belongs
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        Postings[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Postings[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static boolean matches(Student student, String[] tokens) {
+        Student.State state = student.getState();
+        String[] fields = fields(student, state);
+        for (String token : tokens) {
+            boolean found = false;
+            for (int f = 0; f < fields.length && !found; f++) {
+                if (fields[f] != null) {
+                    found = contains(normalize(fields[f]), token);
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+    
+    // Substring match for full tokens, word-prefix match for short ones
+    private static boolean contains(String text, String token) {
+        if (token.length() >= 3) {
+            return text.contains(token);
+        }
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            if (isWordStart(text, i)) return true;
+        }
+        return false;
+    }
+    
+    private static String[] fields(Student student, Student.State state) {
+        return new String[]{student.getId(), state.name(), state.email(), state.major()};
+    }
+    
+    private static long[] grams(String token) {
+        if (token.length() < 3) {
+            return new long[]{key(token, 0, token.length())};
+        }
+        long[] grams = new long[token.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = key(token, i, 3);
+        }
+        return grams;
+    }
+    
+    // Up to three chars in the low 48 bits, the length above them
+    private static long key(String text, int from, int length) {
+        long key = length;
+        for (int i = from; i < from + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+    
+    private static boolean isWordStart(String text, int i) {
+        return Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+    
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+    
+    private static String[] tokenize(String query) {
+        if (query == null) return new String[0];
+        return Arrays.stream(normalize(query).trim().split("\\s+"))
+            .filter(token -> !token.isEmpty())
+            .toArray(String[]::new);
+    }
+}
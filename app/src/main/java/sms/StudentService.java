@@ -0,0 +1,120 @@
+package sms;
+
+import java.util.*;
+
+// Student registration and profile changes, independent of any UI. Invalid input
+// throws IllegalArgumentException and unknown IDs throw NoSuchElementException,
+// with messages meant to be shown to the user as they are.
+public class StudentService {
+    private static final LatencyHistogram ADD = Metrics.histogram("service.students.add");
+    private static final LatencyHistogram UPDATE = Metrics.histogram("service.students.update");
+    private static final LatencyHistogram LIST = Metrics.histogram("service.students.list");
+    private static final LatencyHistogram SEARCH = Metrics.histogram("service.students.search");
+    
+    private final StudentRepository students;
+    private final StudentSearchIndex searchIndex;
+    private final Partition partition;
+    
+    public StudentService(StudentRepository students, StudentSearchIndex searchIndex) {
+        this(students, searchIndex, null);
+    }
+    
+    // partition, if not null, is the only partition whose students may be added here
+    public StudentService(StudentRepository students, StudentSearchIndex searchIndex, Partition partition) {
+        this.students = students;
+        this.searchIndex = searchIndex;
+        this.partition = partition;
+    }
+    
+    public Student addStudent(String id, String name, String email, String major) {
+        long start = System.nanoTime();
+        try {
+            if (isBlank(id) || isBlank(name)) {
+                throw new IllegalArgumentException("ID and Name are required fields");
+            }
+            if (partition != null && !partition.owns(id)) {
+                throw new IllegalArgumentException("Student " + id + " belongs to partition "
+                    + Partition.of(id, partition.count()) + ", not " + partition.index());
+            }
+            
+            // The repository rejects a duplicate ID atomically with the insert
+            Student student = new Student(id, name, email, major);
+            students.add(student);
+            return student;
+        } finally {
+            ADD.recordSince(start);
+        }
+    }
+    
+    public Student updateStudent(String id, String name, String email, String major) {
+        long start = System.nanoTime();
+        try {
+            if (isBlank(name)) {
+                throw new IllegalArgumentException("Name is a required field");
+            }
+            
+            Student student = getStudent(id);
+            student.updateProfile(name, email, major);
+            return student;
+        } finally {
+            UPDATE.recordSince(start);
+        }
+    }
+    
+    public Student getStudent(String id) {
+        Student student = students.findById(id);
+        if (student == null) {
+            throw new NoSuchElementException("Unknown student ID: " + id);
+        }
+        return student;
+    }
+    
+    // Students in repository order, from offset up to limit of them
+    public List<Student> listStudents(int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            return students.readLocked(() -> {
+                int from = Math.min(offset, students.size());
+                int to = (int) Math.min((long) from + limit, students.size());
+                Object[] page = new Object[to - from];
+                students.fetch(from, to, page);
+                List<Student> result = new ArrayList<>(page.length);
+                for (Object student : page) {
+                    result.add((Student) student);
+                }
+                return result;
+            });
+        } finally {
+            LIST.recordSince(start);
+        }
+    }
+    
+    // Up to limit students matching every word of the query, in repository order
+    public List<Student> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative");
+            }
+            int[] ordinals = searchIndex.search(query, limit);
+            List<Student> result = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                result.add(students.get(ordinal));
+            }
+            return result;
+        } finally {
+            SEARCH.recordSince(start);
+        }
+    }
+    
+    public int countStudents() {
+        return students.size();
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package sms;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Shows the whole repository, or the latest search or query results. While filtered,
+// new students are left out until the panel re-runs the search.
+class StudentTableModel extends PagedTableModel<Student> implements StudentRepositoryListener {
+    private final String[] columnNames = {"ID", "Name", "Email", "Major"};
+    private final StudentRepository students;
+    private PageSource<Student> results;
+    private ToIntFunction<Student> rowOf;
+    
+    public StudentTableModel(StudentRepository students) {
+        super(students);
+        this.students = students;
+        students.addListener(new EdtRepositoryListener(this));
+    }
+    
+    public void showAll() {
+        if (results == null) return;
+        results = null;
+        rowOf = null;
+        setSource(students);
+        fireTableDataChanged();
+    }
+    
+    public void showResults(List<Student> found) {
+        SearchResultSource source = new SearchResultSource(found);
+        show(source, source::rowOf);
+    }
+    
+    public void showQuery(StudentQueryEngine.Result result) {
+        show(result, result::rowOf);
+    }
+    
+    private void show(PageSource<Student> source, ToIntFunction<Student> rowOf) {
+        results = source;
+        this.rowOf = rowOf;
+        setSource(source);
+        fireTableDataChanged();
+    }
+    
+    public boolean isFiltered() {
+        return results != null;
+    }
+    
+    @Override
+    public void studentAdded(Student student) {
+        appended(student.getOrdinal(), student.getOrdinal());
+    }
+    
+    @Override
+    public void studentsAdded(List<Student> students) {
+        appended(students.get(0).getOrdinal(), students.get(students.size() - 1).getOrdinal());
+    }
+    
+    // Showing all, row i is ordinal i, so the row count is how far the rows reach. It
+    // was read from the live repository by setSource or invalidate and may already
+    // include students whose events are still queued; only the rows past it are new.
+    private void appended(int firstOrdinal, int lastOrdinal) {
+        if (results != null) return;
+        int first = Math.max(firstOrdinal, getRowCount());
+        if (first <= lastOrdinal) {
+            fireRowsInserted(first, lastOrdinal);
+        }
+    }
+    
+    @Override
+    public void studentUpdated(Student student) {
+        int row = results == null ? student.getOrdinal() : rowOf.applyAsInt(student);
+        if (row >= 0) {
+            fireRowsUpdated(row, row);
+        }
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    protected Object getColumnValue(Student student, int columnIndex) {
+        return switch (columnIndex) {
+            case 0 -> student.getId();
+            case 1 -> student.getName();
+            case 2 -> student.getEmail();
+            case 3 -> student.getMajor();
+            default -> null;
+        };
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+}
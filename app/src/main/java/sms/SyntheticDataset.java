@@ -0,0 +1,245 @@
+package sms;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Seeded synthetic model for load and performance tests, selected with --synthetic:
+// studentCount students over courseCount courses in twenty departments. Course
+// popularity follows a Zipf law (the most popular course draws about twice as many
+// students as the second), majors are skewed the same way, each student takes one
+// to seven courses, and about 60% of those are graded. Every course has its own
+// difficulty and every student their own ability, so grade distributions differ
+// per course. Capacities leave a fifth of the seats free after the generated
+// enrollments.
+//
+// Each student is generated from a random stream seeded by the seed and the
+// student's index alone, so the same spec gives the same model whatever the number
+// of threads, and a partition gets exactly its share of the full dataset.
+public record SyntheticDataset(int studentCount, int courseCount, long seed) {
+    public static final long DEFAULT_SEED = 42;
+    private static final int DEFAULT_COURSES = 1_000;
+    private static final int CHUNK_SIZE = 16_384;
+    private static final double COURSE_SKEW = 1.0;
+    private static final double MAJOR_SKEW = 0.8;
+    private static final double GRADED_FRACTION = 0.6;
+    private static final int MAX_COURSES = 7;
+    private static final int MIN_CAPACITY = 20;
+    private static final String[] DEPARTMENTS = {"CS", "MATH", "PHYS", "CHEM", "BIO", "ENG", "HIST", "ECON",
+        "PSY", "PHIL", "ART", "MUS", "STAT", "EE", "ME", "CE", "SOC", "POL", "LING", "GEO"};
+    private static final String[] DEPARTMENT_NAMES = {"Computer Science", "Mathematics", "Physics", "Chemistry",
+        "Biology", "English", "History", "Economics", "Psychology", "Philosophy", "Art", "Music", "Statistics",
+        "Electrical Engineering", "Mechanical Engineering", "Civil Engineering", "Sociology", "Political Science",
+        "Linguistics", "Geography"};
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+        "Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+        "Thomas", "Sarah", "Charles", "Karen", "Wei", "Mei", "Hiroshi", "Yuki", "Arjun", "Priya", "Mohammed",
+        "Fatima", "Carlos", "Sofia", "Luca", "Giulia", "Olusegun", "Amara", "Ivan", "Olga", "Lars", "Ingrid",
+        "Mateo", "Valentina"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia",
+        "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Wilson", "Anderson", "Taylor", "Moore",
+        "Jackson", "Martin", "Lee", "Thompson", "Wang", "Li", "Zhang", "Chen", "Tanaka", "Sato", "Patel", "Singh",
+        "Kumar", "Khan", "Ali", "Rossi", "Ferrari", "Okafor", "Adeyemi", "Ivanov", "Petrov", "Nielsen", "Larsen",
+        "Silva"};
+    private static final String[] GRADES = {"F", "D", "C", "B", "A"};
+    
+    public SyntheticDataset {
+        if (studentCount < 0 || courseCount < 1) {
+            throw new IllegalArgumentException("A synthetic dataset needs at least one course and no negative counts");
+        }
+    }
+    
+    // "students[,courses[,seed]]", as on the command line
+    public static SyntheticDataset parse(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Synthetic dataset must be students[,courses[,seed]], got " + spec);
+        }
+        return new SyntheticDataset(Integer.parseInt(parts[0].trim()),
+            parts.length > 1 ? Integer.parseInt(parts[1].trim()) : DEFAULT_COURSES,
+            parts.length > 2 ? Long.parseLong(parts[2].trim()) : DEFAULT_SEED);
+    }
+    
+    // Adds the courses, then the students partition owns (all if null) in index order.
+    // Chunks of students are generated on parallelism threads and appended as each one
+    // is done; no more than two per thread are held at a time. Returns the number added.
+    public int generate(CourseCatalog courses, StudentRepository students, Partition partition, int parallelism)
+            throws IOException {
+        Model model = new Model();
+        for (Course course : model.courses) {
+            courses.add(course);
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "synthetic-data");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int chunks = (studentCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Deque<Future<List<Student>>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        int added = 0;
+        try {
+            while (submitted < chunks || !pending.isEmpty()) {
+                while (submitted < chunks && pending.size() < 2 * parallelism) {
+                    int from = submitted++ * CHUNK_SIZE;
+                    int to = Math.min(from + CHUNK_SIZE, studentCount);
+                    pending.add(pool.submit(() -> model.students(from, to, partition)));
+                }
+                List<Student> chunk = pending.remove().get();
+                students.addAll(chunk);
+                added += chunk.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Synthetic data generation interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Synthetic data generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return added;
+    }
+    
+    public int generate(CourseCatalog courses, StudentRepository students, Partition partition) throws IOException {
+        return generate(courses, students, partition, Runtime.getRuntime().availableProcessors());
+    }
+    
+    // S0000000, S0000001, ...; String.format would cost more than the rest of a student
+    public static String studentId(int index) {
+        String digits = Integer.toString(index);
+        return digits.length() >= 7 ? "S" + digits : "S" + "0000000".substring(digits.length()) + digits;
+    }
+    
+    @Override
+    public String toString() {
+        return studentCount + "," + courseCount + "," + seed;
+    }
+    
+    // Courses and the shared distributions students are drawn from; read-only once built
+    private final class Model {
+        final List<Course> courses = new ArrayList<>(courseCount);
+        final String[] courseCodes = new String[courseCount];
+        // Mean grade points (0 = F .. 4 = A) of an average student in each course
+        final double[] courseMeans = new double[courseCount];
+        // Cumulative Zipf weights by popularity rank, and the course at each rank
+        final double[] courseWeights;
+        final int[] courseByRank = new int[courseCount];
+        final double[] majorWeights;
+        // "First Last" and "first.last" for every pair
+        final String[][] names = new String[FIRST_NAMES.length][LAST_NAMES.length];
+        final String[][] emailNames = new String[FIRST_NAMES.length][LAST_NAMES.length];
+        
+        Model() {
+            SplittableRandom random = new SplittableRandom(seed);
+            courseWeights = zipf(courseCount, COURSE_SKEW);
+            majorWeights = zipf(DEPARTMENTS.length, MAJOR_SKEW);
+            for (int f = 0; f < FIRST_NAMES.length; f++) {
+                for (int l = 0; l < LAST_NAMES.length; l++) {
+                    names[f][l] = FIRST_NAMES[f] + " " + LAST_NAMES[l];
+                    emailNames[f][l] = (FIRST_NAMES[f] + "." + LAST_NAMES[l]).toLowerCase(Locale.ROOT);
+                }
+            }
+            for (int i = 0; i < courseCount; i++) {
+                courseByRank[i] = i;
+            }
+            for (int i = courseCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = courseByRank[i];
+                courseByRank[i] = courseByRank[j];
+                courseByRank[j] = swap;
+            }
+            // Course picks come from their own stream, so the rosters of the whole dataset
+            // can be counted without generating the students; every partition sees the same
+            int[] enrollments = new int[courseCount];
+            int[] taken = new int[Math.min(MAX_COURSES, courseCount)];
+            for (int i = 0; i < studentCount; i++) {
+                int count = pickCourses(studentRandom(i).split(), taken);
+                for (int c = 0; c < count; c++) {
+                    enrollments[taken[c]]++;
+                }
+            }
+            
+            for (int i = 0; i < courseCount; i++) {
+                int department = i % DEPARTMENTS.length;
+                int number = 100 + i / DEPARTMENTS.length;
+                courseCodes[i] = DEPARTMENTS[department] + number;
+                courseMeans[i] = 1.6 + 1.8 * random.nextDouble();
+                int capacity = Math.max(MIN_CAPACITY, (int) Math.ceil(enrollments[i] * 1.25 / 10) * 10);
+                courses.add(new Course(courseCodes[i], DEPARTMENT_NAMES[department] + " " + number, capacity));
+            }
+        }
+        
+        List<Student> students(int from, int to, Partition partition) {
+            List<Student> chunk = new ArrayList<>(to - from);
+            int[] taken = new int[Math.min(MAX_COURSES, courseCount)];
+            for (int i = from; i < to; i++) {
+                String id = studentId(i);
+                if (partition != null && !partition.owns(id)) continue;
+                
+                SplittableRandom random = studentRandom(i);
+                int count = pickCourses(random.split(), taken);
+                int first = random.nextInt(FIRST_NAMES.length);
+                int last = random.nextInt(LAST_NAMES.length);
+                String email = emailNames[first][last] + i + "@university.edu";
+                String major = DEPARTMENT_NAMES[sample(majorWeights, random)];
+                double ability = 0.6 * random.nextGaussian();
+                
+                Set<String> enrolled = new HashSet<>();
+                Map<String, String> grades = new HashMap<>();
+                for (int c = 0; c < count; c++) {
+                    int course = taken[c];
+                    enrolled.add(courseCodes[course]);
+                    if (random.nextDouble() < GRADED_FRACTION) {
+                        double points = courseMeans[course] + ability + 0.8 * random.nextGaussian();
+                        grades.put(courseCodes[course], GRADES[(int) Math.max(0, Math.min(4, Math.round(points)))]);
+                    }
+                }
+                chunk.add(new Student(id, names[first][last], email, major, enrolled, grades));
+            }
+            return chunk;
+        }
+        
+        // One to MAX_COURSES distinct courses by popularity, into taken; returns how many
+        int pickCourses(SplittableRandom random, int[] taken) {
+            int count = Math.min(taken.length, 1 + random.nextInt(4) + random.nextInt(4));
+            int picked = 0;
+            while (picked < count) {
+                int course = courseByRank[sample(courseWeights, random)];
+                if (!contains(taken, picked, course)) {
+                    taken[picked++] = course;
+                }
+            }
+            return count;
+        }
+        
+        SplittableRandom studentRandom(int index) {
+            return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        }
+    }
+    
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+    
+    // Cumulative weights 1/rank^skew for ranks 1..n
+    private static double[] zipf(int n, double skew) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        return cumulative;
+    }
+    
+    // Index of a value drawn with the given cumulative weights
+    private static int sample(double[] cumulative, SplittableRandom random) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return Math.min(i < 0 ? -i - 1 : i, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,136 @@
+package sms;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Writes a transcript for every student, in parallel, into numbered part files of
+// PART_SIZE transcripts each (transcripts-000000.txt, ...), in repository order.
+// Each worker formats into its own reused buffer and flushes it to the part file
+// whenever it fills up, so memory stays bounded by the worker count, not the
+// student count. All parts are read from one ModelSnapshot, so the batch reflects a
+// single moment while edits carry on.
+public class TranscriptGenerator {
+    static final int PART_SIZE = 1_000;
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+    
+    public record Result(int transcripts, int files, long bytes, long elapsedNanos) {
+        public double transcriptsPerSecond() {
+            return transcripts / (elapsedNanos / 1e9);
+        }
+    }
+    
+    private final StudentRepository students;
+    private final int parallelism;
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+    
+    // Per-worker text buffer and the char array it is copied through on flush
+    private static class Buffer {
+        final StringBuilder text = new StringBuilder(2 * FLUSH_THRESHOLD);
+        char[] chars = new char[2 * FLUSH_THRESHOLD];
+        
+        void flush(Writer out) throws IOException {
+            int length = text.length();
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            text.getChars(0, length, chars, 0);
+            out.write(chars, 0, length);
+            text.setLength(0);
+        }
+    }
+    
+    public TranscriptGenerator(StudentRepository students) {
+        this(students, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public TranscriptGenerator(StudentRepository students, int parallelism) {
+        this.students = students;
+        this.parallelism = parallelism;
+    }
+    
+    // Blocks until every part is written; progress receives the number of finished transcripts.
+    // Students added while this runs are left for the next batch.
+    public Result generate(Path directory, IntConsumer progress) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        ModelSnapshot snapshot = students.openSnapshot();
+        int total = snapshot.size();
+        int parts = (total + PART_SIZE - 1) / PART_SIZE;
+        AtomicInteger done = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, parts).parallel().forEach(part -> {
+                int from = part * PART_SIZE;
+                int to = Math.min(from + PART_SIZE, total);
+                bytes.addAndGet(writePart(snapshot, directory.resolve(String.format("transcripts-%06d.txt", part)), from, to));
+                int finished = done.addAndGet(to - from);
+                if (progress != null) {
+                    progress.accept(finished);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transcript generation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            // On an interrupt or a failed part other parts may still be running: cancel the
+            // queued ones and wait out the rest before their snapshot goes away
+            pool.shutdownNow();
+            awaitTermination(pool);
+            snapshot.close();
+        }
+        return new Result(total, parts, bytes.get(), System.nanoTime() - start);
+    }
+    
+    // Waits even if interrupted (a running part finishes its file), then restores the interrupt
+    private static void awaitTermination(ForkJoinPool pool) {
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private long writePart(ModelSnapshot snapshot, Path file, int from, int to) {
+        Buffer buffer = buffers.get();
+        try {
+            try (Writer out = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+                snapshot.forEach(from, to, (student, state) -> {
+                    student.appendDetailedInfo(buffer.text, state);
+                    buffer.text.append("\n----------------------------------------\n\n");
+                    if (buffer.text.length() >= FLUSH_THRESHOLD) {
+                        try {
+                            buffer.flush(out);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+                buffer.flush(out);
+            }
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.text.setLength(0);
+        }
+    }
+}
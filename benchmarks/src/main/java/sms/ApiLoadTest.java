@@ -0,0 +1,126 @@
+package sms;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Registration-day load against the HTTP API: registers students, then runs a mix of
+// 70% profile reads, 20% enrollments and 10% grade updates from concurrent clients
+// and reports requests per second and latency percentiles.
+// Without a URL it starts an in-memory server with 50 courses on a free port.
+// Usage: java -cp benchmarks.jar sms.ApiLoadTest [clients] [seconds] [baseUrl]
+public class ApiLoadTest {
+    private static final int STUDENTS = 10_000;
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        ApiServer embedded = null;
+        String baseUrl;
+        if (args.length > 2) {
+            baseUrl = args[2];
+        } else {
+            Backend backend = Backend.inMemory();
+            for (int i = 0; i < 50; i++) {
+                backend.getCourses().add(new Course(String.format("C%03d", i), "Course " + i));
+            }
+            embedded = new ApiServer(backend, 0);
+            embedded.start();
+            baseUrl = "http://localhost:" + embedded.getPort();
+        }
+        
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(clients)).build();
+        List<String> courseCodes = new ArrayList<>();
+        Matcher codes = Pattern.compile("\"code\":\"([^\"]*)\"").matcher(send(client, "GET", baseUrl + "/courses", null).body());
+        while (codes.find()) {
+            courseCodes.add(codes.group(1));
+        }
+        if (courseCodes.isEmpty()) {
+            throw new IllegalStateException("The server has no courses to enroll in");
+        }
+        
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<?>> registrations = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int first = c;
+            registrations.add(pool.submit(() -> {
+                for (int i = first; i < STUDENTS; i += clients) {
+                    send(client, "POST", baseUrl + "/students", String.format(
+                        "{\"id\":\"LT%06d\",\"name\":\"Load Test %d\",\"email\":\"lt%d@email.com\",\"major\":\"Physics\"}", i, i, i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> registration : registrations) {
+            registration.get();
+        }
+        System.out.printf("registered %,d students in %d ms%n", STUDENTS, (System.nanoTime() - start) / 1_000_000);
+        
+        LongAdder failures = new LongAdder();
+        List<long[]> latencies = new ArrayList<>();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            workers.add(pool.submit(() -> {
+                Random random = ThreadLocalRandom.current();
+                long[] samples = new long[1 << 20];
+                int count = 0;
+                while (System.nanoTime() < deadline && count < samples.length) {
+                    String id = String.format("LT%06d", random.nextInt(STUDENTS));
+                    String course = courseCodes.get(random.nextInt(courseCodes.size()));
+                    int kind = random.nextInt(10);
+                    long begin = System.nanoTime();
+                    HttpResponse<String> response;
+                    if (kind < 7) {
+                        response = send(client, "GET", baseUrl + "/students/" + id, null);
+                    } else if (kind < 9) {
+                        response = send(client, "POST", baseUrl + "/enrollments",
+                            "{\"studentId\":\"" + id + "\",\"courseCode\":\"" + course + "\"}");
+                    } else {
+                        response = send(client, "PUT", baseUrl + "/students/" + id + "/grades",
+                            "{\"" + course + "\":\"" + GRADES[random.nextInt(GRADES.length)] + "\"}");
+                    }
+                    samples[count++] = System.nanoTime() - begin;
+                    if (response.statusCode() >= 400) {
+                        failures.increment();
+                    }
+                }
+                return Arrays.copyOf(samples, count);
+            }));
+        }
+        for (Future<long[]> worker : workers) {
+            latencies.add(worker.get());
+        }
+        pool.shutdown();
+        
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d clients, %d s: %,d requests, %,.0f requests/s, %d failed%n",
+            clients, seconds, all.length, all.length / (double) seconds, failures.sum());
+        System.out.printf("latency p50 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+            percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        System.out.println("server stats: " + send(client, "GET", baseUrl + "/stats", null).body());
+        
+        if (embedded != null) {
+            embedded.stop();
+        }
+        System.exit(0);
+    }
+    
+    private static HttpResponse<String> send(HttpClient client, String method, String url, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
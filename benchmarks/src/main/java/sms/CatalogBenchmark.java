@@ -0,0 +1,18 @@
+package sms;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Course lookup by code. GradePanel.findCourseByCode was replaced by the catalog's
+// code index, so this measures CourseCatalog.findByCode as used by the panels.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class CatalogBenchmark {
+    @Benchmark
+    public Course findByCode(Dataset data, Dataset.Cursor cursor) {
+        return data.courses.findByCode(data.probeCourses[cursor.next()]);
+    }
+}
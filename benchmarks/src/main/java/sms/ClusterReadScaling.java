@@ -0,0 +1,268 @@
+package sms;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read scaling of a partitioned cluster on one machine. Starts one primary JVM per
+// partition, loads students through them, then starts maxReplicas replica JVMs per
+// partition and checks that each replica holds exactly its primary's students. For
+// 0, 1, ... maxReplicas replicas per partition it routes a read mix through an
+// in-process ClusterRouter - 80% single-student reads, 20% scatter-gathered
+// "eligible for MATH201" queries (passed CS101, not enrolled in MATH201) - and reports
+// requests per second and latency: the read-scaling curve. Finally it measures how
+// long a write on a primary takes to show up on a replica.
+// All JVMs share this machine's cores, so the curve flattens once they are saturated.
+// Exits with status 1 if a check fails.
+// Usage: java -cp benchmarks.jar sms.ClusterReadScaling [partitions] [maxReplicas] [students] [seconds] [clients]
+public class ClusterReadScaling {
+    private static final int LOAD_CLIENTS = 16;
+    private static final int LAG_SAMPLES = 50;
+    private static final String[] LAG_GRADES = {"A", "C"};
+    
+    private static final List<Process> processes = new CopyOnWriteArrayList<>();
+    
+    public static void main(String[] args) throws Exception {
+        int partitionCount = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int maxReplicas = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int studentCount = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int clients = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+        System.out.printf("%d partitions, up to %d replicas each, %,d students, %d cores%n",
+            partitionCount, maxReplicas, studentCount, Runtime.getRuntime().availableProcessors());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processes.forEach(Process::destroy)));
+        
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newFixedThreadPool(LOAD_CLIENTS)).build();
+        Path dataRoot = Files.createTempDirectory("cluster");
+        List<String> primaries = new ArrayList<>();
+        List<Integer> replicationPorts = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            int port = freePort();
+            int replicationPort = freePort();
+            launch("-Dsms.dataDir=" + dataRoot.resolve("partition-" + p), "--headless", "--port", Integer.toString(port),
+                "--partition", p + "/" + partitionCount, "--replication-port", Integer.toString(replicationPort));
+            primaries.add("localhost:" + port);
+            replicationPorts.add(replicationPort);
+        }
+        for (String primary : primaries) {
+            awaitReady(client, primary);
+        }
+        
+        long start = System.nanoTime();
+        load(client, primaries, studentCount);
+        System.out.printf("loaded %,d students in %d ms%n", studentCount, (System.nanoTime() - start) / 1_000_000);
+        
+        List<List<String>> replicas = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            List<String> partitionReplicas = new ArrayList<>();
+            for (int r = 0; r < maxReplicas; r++) {
+                int port = freePort();
+                launch("--headless", "--port", Integer.toString(port), "--replica-of", "localhost:" + replicationPorts.get(p));
+                partitionReplicas.add("localhost:" + port);
+            }
+            replicas.add(partitionReplicas);
+        }
+        List<String> failures = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            long expected = total(client, primaries.get(p));
+            for (String replica : replicas.get(p)) {
+                awaitReady(client, replica);
+                long held = total(client, replica);
+                if (held != expected) {
+                    failures.add("Replica " + replica + " holds " + held + " students, its primary " + expected);
+                }
+            }
+        }
+        
+        System.out.printf("%-9s %12s %10s %10s%n", "replicas", "requests/s", "p50 ms", "p99 ms");
+        for (int r = 0; r <= maxReplicas; r++) {
+            List<List<String>> topology = new ArrayList<>();
+            for (int p = 0; p < partitionCount; p++) {
+                List<String> nodes = new ArrayList<>();
+                nodes.add(primaries.get(p));
+                nodes.addAll(replicas.get(p).subList(0, r));
+                topology.add(nodes);
+            }
+            ClusterRouter router = new ClusterRouter(topology, 0);
+            router.start();
+            readMix(client, "localhost:" + router.getPort(), studentCount, clients, seconds, r, failures);
+            router.stop();
+        }
+        
+        if (maxReplicas > 0) {
+            measureLag(client, primaries.get(0), replicas.get(0).get(0), studentCount, partitionCount, failures);
+        }
+        
+        if (!failures.isEmpty()) {
+            failures.stream().limit(10).forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+        System.exit(0);
+    }
+    
+    // Students go straight to their partition's primary; half of them pass CS101 and a
+    // fifth of those also take MATH201
+    private static void load(HttpClient client, List<String> primaries, int studentCount) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(LOAD_CLIENTS);
+        List<Future<?>> loaders = new ArrayList<>();
+        for (int c = 0; c < LOAD_CLIENTS; c++) {
+            int first = c;
+            loaders.add(pool.submit(() -> {
+                for (int i = first; i < studentCount; i += LOAD_CLIENTS) {
+                    String id = studentId(i);
+                    String primary = primaries.get(Partition.of(id, primaries.size()));
+                    check(send(client, "POST", primary, "/students", String.format(
+                        "{\"id\":\"%s\",\"name\":\"Cluster Student %d\",\"email\":\"cs%d@email.com\",\"major\":\"Physics\"}",
+                        id, i, i)));
+                    if (i % 2 == 0) {
+                        check(send(client, "POST", primary, "/enrollments",
+                            "{\"studentId\":\"" + id + "\",\"courseCode\":\"CS101\"}"));
+                        check(send(client, "PUT", primary, "/students/" + id + "/grades", "{\"CS101\":\"B\"}"));
+                        if (i % 10 == 0) {
+                            check(send(client, "POST", primary, "/enrollments",
+                                "{\"studentId\":\"" + id + "\",\"courseCode\":\"MATH201\"}"));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> loader : loaders) {
+            loader.get();
+        }
+        pool.shutdown();
+    }
+    
+    private static void readMix(HttpClient client, String router, int studentCount, int clients, int seconds,
+            int replicasPerPartition, List<String> failures) throws Exception {
+        LongAdder failed = new LongAdder();
+        LatencyHistogram latency = new LatencyHistogram("read");
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<?>> workers = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            workers.add(pool.submit(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    HttpResponse<String> response = random.nextInt(5) == 0
+                        ? send(client, "GET", router, "/enrollments?all=CS101&none=MATH201&limit=20", null)
+                        : send(client, "GET", router, "/students/" + studentId(random.nextInt(studentCount)), null);
+                    latency.recordSince(begin);
+                    if (response.statusCode() >= 400) {
+                        failed.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("%-9d %,12.0f %10.2f %10.2f%n", replicasPerPartition, snapshot.count() / (double) seconds,
+            snapshot.p50Nanos() / 1e6, snapshot.p99Nanos() / 1e6);
+        if (failed.sum() > 0) {
+            failures.add(replicasPerPartition + " replicas: " + failed.sum() + " failed reads");
+        }
+    }
+    
+    // Time from a grade change being acknowledged by the primary to a replica serving it
+    private static void measureLag(HttpClient client, String primary, String replica, int studentCount,
+            int partitionCount, List<String> failures) throws Exception {
+        List<String> owned = new ArrayList<>();
+        for (int i = 0; i < studentCount && owned.size() < LAG_SAMPLES; i++) {
+            // Even students take CS101
+            if (i % 2 == 0 && Partition.of(studentId(i), partitionCount) == 0) {
+                owned.add(studentId(i));
+            }
+        }
+        long[] lags = new long[owned.size()];
+        for (int i = 0; i < owned.size(); i++) {
+            String grade = "\"CS101\":\"" + LAG_GRADES[i % LAG_GRADES.length] + "\"";
+            check(send(client, "PUT", primary, "/students/" + owned.get(i) + "/grades", "{" + grade + "}"));
+            long acknowledged = System.nanoTime();
+            long deadline = acknowledged + 5_000_000_000L;
+            while (!send(client, "GET", replica, "/students/" + owned.get(i), null).body().contains(grade)) {
+                if (System.nanoTime() > deadline) {
+                    failures.add("Grade change for " + owned.get(i) + " did not reach " + replica + " within 5 s");
+                    return;
+                }
+            }
+            lags[i] = System.nanoTime() - acknowledged;
+        }
+        Arrays.sort(lags);
+        System.out.printf("replication lag over %d writes: p50 %.2f ms  max %.2f ms%n",
+            lags.length, lags[lags.length / 2] / 1e6, lags[lags.length - 1] / 1e6);
+    }
+    
+    private static String studentId(int i) {
+        return String.format("CL%07d", i);
+    }
+    
+    private static void launch(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        List<String> jvmOptions = new ArrayList<>();
+        List<String> programArgs = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("-D") ? jvmOptions : programArgs).add(arg);
+        }
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "sms.StudentManagementSystem"));
+        command.addAll(programArgs);
+        Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        processes.add(process);
+    }
+    
+    private static void awaitReady(HttpClient client, String node) throws Exception {
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (true) {
+            try {
+                if (send(client, "GET", node, "/stats", null).statusCode() == 200) return;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+    
+    private static long total(HttpClient client, String node) throws Exception {
+        String body = send(client, "GET", node, "/students?limit=0", null).body();
+        return ((Number) ((Map<?, ?>) Json.parse(body)).get("total")).longValue();
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static void check(HttpResponse<String> response) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(response.uri() + ": " + response.body());
+        }
+    }
+    
+    private static HttpResponse<String> send(HttpClient client, String method, String node, String target, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://" + node + target));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
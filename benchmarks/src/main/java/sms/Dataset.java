@@ -0,0 +1,55 @@
+package sms;
+
+import java.io.IOException;
+import java.util.*;
+import org.openjdk.jmh.annotations.*;
+
+// Shared benchmark model: the SyntheticDataset of studentCount students and
+// courseCount courses with its default seed, built once per trial, plus
+// precomputed random probes so benchmarks do not pay for Random.
+@State(Scope.Benchmark)
+public class Dataset {
+    static final int PROBES = 4096;
+    
+    @Param({"1000", "100000", "1000000"})
+    public int studentCount;
+    
+    @Param({"10", "1000", "10000"})
+    public int courseCount;
+    
+    CourseCatalog courses;
+    StudentRepository students;
+    String[] courseCodes;
+    Student[] probeStudents;
+    String[] probeCourses;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        courses = new CourseCatalog();
+        students = new StudentRepository(courses);
+        new SyntheticDataset(studentCount, courseCount, SyntheticDataset.DEFAULT_SEED).generate(courses, students, null);
+        courseCodes = new String[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            courseCodes[i] = courses.get(i).getCode();
+        }
+        
+        Random random = new Random(42);
+        probeStudents = new Student[PROBES];
+        probeCourses = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probeStudents[i] = students.get(random.nextInt(studentCount));
+            probeCourses[i] = courseCodes[random.nextInt(courseCount)];
+        }
+    }
+    
+    // Per-thread position in the probe arrays
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        
+        int next() {
+            next = (next + 1) & (PROBES - 1);
+            return next;
+        }
+    }
+}
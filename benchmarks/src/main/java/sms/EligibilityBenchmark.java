@@ -0,0 +1,24 @@
+package sms;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// What EnrollmentPanel.updateEligibleStudentsList does for a course switch: build
+// the eligible-student view and fetch the first visible page from it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class EligibilityBenchmark {
+    private static final int PAGE = 256;
+    
+    @Benchmark
+    public Object[] eligibleFirstPage(Dataset data, Dataset.Cursor cursor) {
+        EligibleStudentsSource source = new EligibleStudentsSource(
+            data.students, data.courses, data.probeCourses[cursor.next()]);
+        Object[] page = new Object[Math.min(PAGE, source.size())];
+        source.fetch(0, page.length, page);
+        return page;
+    }
+}
@@ -0,0 +1,39 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Enrollment through the repository (write lock, roster index, listeners). Each
+// measured batch enrolls students that were appended unenrolled just before it, so
+// every call is a real enrollment rather than the already-enrolled fast path.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = EnrollBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = EnrollBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class EnrollBenchmark {
+    static final int BATCH = 10_000;
+    
+    private final List<Student> fresh = new ArrayList<>(BATCH);
+    private int next;
+    private int iteration;
+    
+    @Setup(Level.Iteration)
+    public void addFreshStudents(Dataset data) {
+        fresh.clear();
+        for (int i = 0; i < BATCH; i++) {
+            fresh.add(new Student(String.format("F%03d-%05d", iteration, i), "Fresh " + i, null, null));
+        }
+        data.students.addAll(fresh);
+        next = 0;
+        iteration++;
+    }
+    
+    @Benchmark
+    public void enrollInCourse(Dataset data) {
+        int i = next++;
+        fresh.get(i).enrollInCourse(data.courseCodes[i % data.courseCount]);
+    }
+}
@@ -0,0 +1,50 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Cross-course set queries on the roster bitmaps: "in A but not B" and "took both
+// prerequisites A and B but not C", counted. scanInANotB is the same question asked
+// the old way, one isEnrolledIn check per student, for comparison.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class EnrollmentQueryBenchmark {
+    @Benchmark
+    public int inANotB(Dataset data, Dataset.Cursor cursor) {
+        String a = data.probeCourses[cursor.next()];
+        String b = data.probeCourses[cursor.next()];
+        return data.courses.match(List.of(a), List.of(), List.of(b), data.studentCount).cardinality();
+    }
+    
+    @Benchmark
+    public int eligibleGivenPrerequisites(Dataset data, Dataset.Cursor cursor) {
+        String first = data.probeCourses[cursor.next()];
+        String second = data.probeCourses[cursor.next()];
+        String target = data.probeCourses[cursor.next()];
+        return data.courses.match(List.of(first, second), List.of(), List.of(target), data.studentCount).cardinality();
+    }
+    
+    @Benchmark
+    public int notEnrolled(Dataset data, Dataset.Cursor cursor) {
+        return data.courses.match(List.of(), List.of(), List.of(data.probeCourses[cursor.next()]), data.studentCount)
+            .cardinality();
+    }
+    
+    @Benchmark
+    public int scanInANotB(Dataset data, Dataset.Cursor cursor) {
+        String a = data.probeCourses[cursor.next()];
+        String b = data.probeCourses[cursor.next()];
+        int count = 0;
+        for (int i = 0; i < data.studentCount; i++) {
+            Student student = data.students.get(i);
+            if (student.isEnrolledIn(a) && !student.isEnrolledIn(b)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,67 @@
+package sms;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.ObjectName;
+
+// Heap footprint of a loaded model: studentCount students with five enrollments each,
+// about half of them graded, built the way loaders build them (every code, major and
+// grade a fresh string, as parsed from a file). Prints the live heap after a full GC
+// and the top of the class histogram.
+// Usage: java -Xmx4g -cp benchmarks.jar sms.HeapFootprint [students] [courses]
+public class HeapFootprint {
+    private static final String[] MAJORS = {"Computer Science", "Mathematics", "Physics", "Chemistry", "Biology"};
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    private static final int HISTOGRAM_LINES = 15;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        long baseline = liveHeap();
+        
+        Random random = new Random(42);
+        CourseCatalog courses = new CourseCatalog();
+        for (int i = 0; i < courseCount; i++) {
+            courses.add(new Course(String.format("C%05d", i), "Course " + i));
+        }
+        StudentRepository students = new StudentRepository(courses);
+        List<Student> batch = new ArrayList<>();
+        for (int i = 0; i < studentCount; i++) {
+            Set<String> enrolled = new HashSet<>();
+            Map<String, String> grades = new HashMap<>();
+            for (int c = 0; c < 5; c++) {
+                String code = String.format("C%05d", random.nextInt(courseCount));
+                enrolled.add(code);
+                if (random.nextBoolean()) {
+                    grades.put(code, new String(GRADES[random.nextInt(GRADES.length)]));
+                }
+            }
+            batch.add(new Student(String.format("S%07d", i), "Student " + i, "student" + i + "@email.com",
+                new String(MAJORS[random.nextInt(MAJORS.length)]), enrolled, grades));
+            if (batch.size() == 10_000) {
+                students.addAll(batch);
+                batch.clear();
+            }
+        }
+        students.addAll(batch);
+        batch = null;
+        
+        long used = liveHeap() - baseline;
+        System.out.printf("%,d students, %,d courses: %,d MB live heap, %,d bytes per student%n",
+            studentCount, courseCount, used >> 20, used / studentCount);
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+            new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+            new Object[]{null}, new String[]{String[].class.getName()});
+        histogram.lines().limit(HISTOGRAM_LINES + 3).forEach(System.out::println);
+        
+        // Keep the model reachable until after the histogram
+        System.out.println(students.size() + courses.size() > 0 ? "" : "empty");
+    }
+    
+    private static long liveHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,171 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Writers against a long full-table read. A writer thread keeps updating single grades
+// and, every SECTION_EVERY updates, regrades a whole section in one transaction, while
+// a reader scans every student over and over, formatting each one like an export does.
+// The scan runs in three ways: not at all (baseline), as one read under the repository
+// lock (how exports used to work), and over a ModelSnapshot. Reports writer throughput
+// and latency for each (p99.9 rather than max, which mostly measures GC pauses), and
+// checks that every scan saw each section graded uniformly, i.e. never half of a
+// transaction, and that closed snapshots leave no old states behind.
+// Exits with status 1 if a check fails.
+// Usage: java -cp benchmarks.jar sms.MvccScanBenchmark [students] [secondsPerMode]
+public class MvccScanBenchmark {
+    private static final int SECTIONS = 50;
+    private static final int ELECTIVES = 50;
+    private static final int SECTION_EVERY = 1_000;
+    private static final String[] LETTERS = {"A", "B", "C", "D", "F"};
+    
+    private enum Mode { BASELINE, LOCKED_SCAN, SNAPSHOT_SCAN }
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.printf("%,d students, %d cores, %d s per mode%n",
+            studentCount, Runtime.getRuntime().availableProcessors(), seconds);
+        
+        Backend backend = Backend.inMemory();
+        CourseCatalog courses = backend.getCourses();
+        for (int i = 0; i < SECTIONS; i++) {
+            courses.add(new Course("SEC" + i, "Section " + i, studentCount));
+        }
+        for (int i = 0; i < ELECTIVES; i++) {
+            courses.add(new Course("ELC" + i, "Elective " + i, studentCount));
+        }
+        StudentRepository repository = backend.getStudents();
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new Student(String.format("M%07d", i), "Student " + i, "m" + i + "@email.com", "Physics"));
+        }
+        repository.addAll(students);
+        Random random = new Random(42);
+        for (Student student : students) {
+            student.enrollInCourse("SEC" + random.nextInt(SECTIONS));
+            student.enrollInCourse("ELC" + random.nextInt(ELECTIVES));
+        }
+        for (int i = 0; i < SECTIONS; i++) {
+            regrade(courses, repository, "SEC" + i, "A");
+        }
+        
+        List<String> failures = new ArrayList<>();
+        for (Mode mode : Mode.values()) {
+            run(mode, seconds, courses, repository, students, failures);
+        }
+        int retained = repository.getRetainingCount();
+        if (retained != 0) {
+            failures.add(retained + " students still keep old states after every snapshot was closed");
+        }
+        
+        if (!failures.isEmpty()) {
+            failures.stream().limit(10).forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+    
+    private static void run(Mode mode, int seconds, CourseCatalog courses, StudentRepository repository,
+            List<Student> students, List<String> failures) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        LatencyHistogram writeLatency = new LatencyHistogram("write");
+        AtomicLong updates = new AtomicLong();
+        AtomicLong sectionUpdates = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long n = 0;
+            while (!stop.get()) {
+                long start = System.nanoTime();
+                if (++n % SECTION_EVERY == 0) {
+                    regrade(courses, repository, "SEC" + random.nextInt(SECTIONS), LETTERS[random.nextInt(LETTERS.length)]);
+                    sectionUpdates.incrementAndGet();
+                } else {
+                    Student student = students.get(random.nextInt(students.size()));
+                    String elective = student.getEnrolledCourses().stream()
+                        .filter(code -> code.startsWith("ELC")).findFirst().orElseThrow();
+                    student.updateGrades(Map.of(elective, LETTERS[random.nextInt(LETTERS.length)]));
+                    updates.incrementAndGet();
+                }
+                writeLatency.recordSince(start);
+            }
+        }, "writer");
+        
+        AtomicLong scans = new AtomicLong();
+        AtomicLong scanNanos = new AtomicLong();
+        AtomicInteger maxRetained = new AtomicInteger();
+        List<String> torn = Collections.synchronizedList(new ArrayList<>());
+        Thread reader = new Thread(() -> {
+            StringBuilder out = new StringBuilder(1 << 16);
+            while (!stop.get()) {
+                long start = System.nanoTime();
+                Map<String, String> sectionGrades = new HashMap<>();
+                if (mode == Mode.LOCKED_SCAN) {
+                    repository.readLocked(() -> {
+                        for (int i = 0; i < repository.size(); i++) {
+                            Student student = repository.get(i);
+                            scanRow(student, student.getState(), out, sectionGrades, torn);
+                        }
+                        return null;
+                    });
+                } else {
+                    try (ModelSnapshot snapshot = repository.openSnapshot()) {
+                        snapshot.forEach((student, state) -> scanRow(student, state, out, sectionGrades, torn));
+                        maxRetained.accumulateAndGet(repository.getRetainingCount(), Math::max);
+                    }
+                }
+                scanNanos.addAndGet(System.nanoTime() - start);
+                scans.incrementAndGet();
+            }
+        }, "reader");
+        
+        writer.start();
+        if (mode != Mode.BASELINE) {
+            reader.start();
+        }
+        Thread.sleep(seconds * 1_000L);
+        stop.set(true);
+        writer.join();
+        if (mode != Mode.BASELINE) {
+            reader.join();
+        }
+        
+        LatencyHistogram.Snapshot latency = writeLatency.snapshot();
+        System.out.printf("%-13s %,9.0f updates/s  %,5.1f sections/s  write p50 %,6.1f us  p99 %,7.1f us"
+                + "  p99.9 %,7.2f ms", mode, updates.get() / (double) seconds, sectionUpdates.get() / (double) seconds,
+            latency.p50Nanos() / 1e3, latency.p99Nanos() / 1e3, latency.p999Nanos() / 1e6);
+        if (mode != Mode.BASELINE) {
+            System.out.printf("  %d scans of %,.0f ms", scans.get(), scanNanos.get() / 1e6 / Math.max(1, scans.get()));
+        }
+        if (mode == Mode.SNAPSHOT_SCAN) {
+            System.out.printf("  (up to %,d students keeping old states)", maxRetained.get());
+        }
+        System.out.println();
+        torn.stream().limit(3).forEach(t -> failures.add(mode + ": " + t));
+    }
+    
+    // Formats the row like an export would and checks that the student's section grade
+    // agrees with every other student's in the same section seen by this scan
+    private static void scanRow(Student student, Student.State state, StringBuilder out,
+            Map<String, String> sectionGrades, List<String> torn) {
+        out.setLength(0);
+        CsvTransfer.writeRow(out, student.getId(), state.name(), state.email(), state.major());
+        state.grades().forEach((code, grade) -> {
+            if (code.startsWith("SEC")) {
+                String seen = sectionGrades.putIfAbsent(code, grade);
+                if (seen != null && !seen.equals(grade)) {
+                    torn.add(code + " read as both " + seen + " and " + grade + " in one scan");
+                }
+            }
+        });
+    }
+    
+    private static void regrade(CourseCatalog courses, StudentRepository repository, String code, String letter) {
+        Map<String, String> grades = new HashMap<>();
+        for (Student student : courses.getRoster(code)) {
+            grades.put(student.getId(), letter);
+        }
+        repository.updateCourseGrades(code, grades);
+    }
+}
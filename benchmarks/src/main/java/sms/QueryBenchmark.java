@@ -0,0 +1,94 @@
+package sms;
+
+import java.util.*;
+
+// StudentQueryEngine on the synthetic model against the plain definition of each
+// query, StudentQuery.matches over every student of a snapshot. The queries cover
+// every access path: roster, major, email, ID and trigram indexes, prefix course
+// selectors, negated indexes and check-only queries that scan everything. Prints
+// each plan once, then the median time of the engine and of the scan after a warmup
+// round; exits with status 1 if the engine finds different students than the scan.
+// Usage: java -Xmx4g -cp benchmarks.jar sms.QueryBenchmark [students] [courses] [runs]
+public class QueryBenchmark {
+    private static final String[] QUERIES = {
+        "major = Physics and grade MATH100 <= C and not enrolled CS100",
+        "enrolled MATH1* and gpa < 1.5",
+        "name ~ tanaka and major = Mathematics",
+        "email ~ ivanov12",
+        "id in (S0000042, S0000043, X1)",
+        "graded PHYS100 and not enrolled PHYS100",
+        "major in (Art, Music) and gpa >= 3.5 and not major = Music",
+        "gpa >= 3.9",
+        "enrolled CS100 and not name ~ smith",
+        "email = \"olga.silva7@university.edu\"",
+    };
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+        Backend backend = Backend.inMemory();
+        new SyntheticDataset(studentCount, courseCount, SyntheticDataset.DEFAULT_SEED)
+            .generate(backend.getCourses(), backend.getStudents(), null);
+        StudentRepository students = backend.getStudents();
+        StudentQueryEngine engine = backend.getQueryEngine();
+        System.out.printf("%,d students, %,d courses, %d cores%n%n", studentCount, courseCount,
+            Runtime.getRuntime().availableProcessors());
+        
+        List<String> failures = new ArrayList<>();
+        List<String> summary = new ArrayList<>();
+        for (String text : QUERIES) {
+            StudentQuery query = StudentQuery.parse(text);
+            StudentQueryEngine.Result result = engine.run(query);
+            System.out.println(result.explain());
+            int[] expected = scan(students, query);
+            int[] found = result.getStudents(0, result.size()).stream().mapToInt(Student::getOrdinal).toArray();
+            if (!Arrays.equals(expected, found)) {
+                failures.add(text + ": engine found " + found.length + " students, the scan " + expected.length);
+            }
+            
+            for (int run = 0; run < runs; run++) {
+                engine.run(query);
+                scan(students, query);
+            }
+            long[] engineNanos = new long[runs];
+            long[] scanNanos = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                engine.run(query);
+                engineNanos[run] = System.nanoTime() - start;
+                start = System.nanoTime();
+                scan(students, query);
+                scanNanos[run] = System.nanoTime() - start;
+            }
+            summary.add(String.format("%-62s %,10d %10.2f %10.2f", text, result.size(),
+                median(engineNanos) / 1e6, median(scanNanos) / 1e6));
+        }
+        
+        System.out.printf("%-62s %10s %10s %10s%n", "query", "matches", "engine ms", "scan ms");
+        summary.forEach(System.out::println);
+        if (!failures.isEmpty()) {
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+    
+    private static int[] scan(StudentRepository students, StudentQuery query) {
+        List<Integer> matches = new ArrayList<>();
+        try (ModelSnapshot snapshot = students.openSnapshot()) {
+            snapshot.forEach((student, state) -> {
+                if (query.matches(student, state)) {
+                    matches.add(student.getOrdinal());
+                }
+            });
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,171 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Registration-day contention: every student registers for one hot, capacity-limited
+// section plus a few others, then enrolled students drop the hot section while their
+// seats go to the waitlist. Runs the same load at 1, 2, 4 ... threads (at least up to
+// the core count) and reports throughput for each, checking after every round that
+// no section is oversold and that waitlisted students are promoted in FIFO order.
+// A last phase races waitlisted students leaving against drops that promote them: a
+// student whose drop succeeded must not end up enrolled.
+// Exits with status 1 if an invariant breaks.
+// Usage: java -cp benchmarks.jar sms.RegistrationContentionBenchmark [students] [maxThreads]
+public class RegistrationContentionBenchmark {
+    private static final int HOT_CAPACITY = 500;
+    private static final int SECTIONS = 20;
+    private static final int SECTION_CAPACITY = 2_000;
+    private static final int SECTIONS_PER_STUDENT = 2;
+    private static final int FIFO_CHECKS = 50;
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+            : Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%,d students, %d cores; hot section of %d seats, %d sections of %d%n",
+            studentCount, Runtime.getRuntime().availableProcessors(), HOT_CAPACITY, SECTIONS, SECTION_CAPACITY);
+        
+        List<String> failures = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            runRound(studentCount, threads, failures);
+        }
+        
+        if (!failures.isEmpty()) {
+            failures.stream().limit(10).forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+    
+    private static void runRound(int studentCount, int threads, List<String> failures) throws Exception {
+        Backend backend = Backend.inMemory();
+        CourseCatalog courses = backend.getCourses();
+        Course hot = new Course("HOT101", "Popular Section", HOT_CAPACITY);
+        courses.add(hot);
+        for (int i = 0; i < SECTIONS; i++) {
+            courses.add(new Course("SEC" + i, "Section " + i, SECTION_CAPACITY));
+        }
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new Student(String.format("R%06d", i), "Student " + i, "r" + i + "@email.com", "Physics"));
+        }
+        backend.getStudents().addAll(students);
+        EnrollmentEngine engine = backend.getEnrollmentEngine();
+        
+        // Registration burst: threads pull students off a shared cursor
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicLong waitlisted = new AtomicLong();
+        long registerNanos = runThreads(threads, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i;
+            while ((i = cursor.getAndIncrement()) < studentCount) {
+                Student student = students.get(i);
+                if (engine.register(student, hot) == EnrollmentEngine.Outcome.WAITLISTED) {
+                    waitlisted.incrementAndGet();
+                }
+                for (int k = 0; k < SECTIONS_PER_STUDENT; k++) {
+                    engine.register(student, courses.get(1 + random.nextInt(SECTIONS)));
+                }
+            }
+        });
+        long registrations = (long) studentCount * (1 + SECTIONS_PER_STUDENT);
+        checkSeats(courses, engine, failures, threads + " threads, after registration");
+        if (courses.getEnrollmentCount(hot.getCode()) + waitlisted.get() != studentCount) {
+            failures.add(threads + " threads: " + courses.getEnrollmentCount(hot.getCode()) + " enrolled and "
+                + waitlisted.get() + " waitlisted for " + studentCount + " registrations");
+        }
+        
+        // Drop churn: enrolled students leave the hot section concurrently
+        List<Student> enrolled = new ArrayList<>(courses.getRoster(hot.getCode()));
+        int drops = enrolled.size() / 2;
+        AtomicInteger dropCursor = new AtomicInteger();
+        long dropNanos = runThreads(threads, () -> {
+            int i;
+            while ((i = dropCursor.getAndIncrement()) < drops) {
+                engine.drop(enrolled.get(i), hot);
+            }
+        });
+        checkSeats(courses, engine, failures, threads + " threads, after drops");
+        
+        // FIFO: each further drop must admit the student at the head of the waitlist
+        List<Student> waitlist = engine.getWaitlist(hot);
+        List<Student> remaining = new ArrayList<>(courses.getRoster(hot.getCode()));
+        for (int i = 0; i < Math.min(FIFO_CHECKS, Math.min(waitlist.size(), remaining.size())); i++) {
+            engine.drop(remaining.get(i), hot);
+            if (!waitlist.get(i).isEnrolledIn(hot.getCode())) {
+                failures.add(threads + " threads: waitlist position " + (i + 1) + " was not promoted");
+                break;
+            }
+        }
+        checkSeats(courses, engine, failures, threads + " threads, after FIFO check");
+        
+        // Leave race: half the waitlist leaves while as many enrolled students drop
+        List<Student> leaving = new ArrayList<>();
+        List<Runnable> churn = new ArrayList<>();
+        List<Student> stillWaiting = engine.getWaitlist(hot);
+        List<Student> seated = new ArrayList<>(courses.getRoster(hot.getCode()));
+        for (int i = 0; i < Math.min(stillWaiting.size() / 2, seated.size()); i++) {
+            Student leaver = stillWaiting.get(2 * i);
+            Student dropper = seated.get(i);
+            leaving.add(leaver);
+            churn.add(() -> engine.drop(leaver, hot));
+            churn.add(() -> engine.drop(dropper, hot));
+        }
+        AtomicInteger churnCursor = new AtomicInteger();
+        runThreads(threads, () -> {
+            int i;
+            while ((i = churnCursor.getAndIncrement()) < churn.size()) {
+                churn.get(i).run();
+            }
+        });
+        for (Student leaver : leaving) {
+            if (leaver.isEnrolledIn(hot.getCode())) {
+                failures.add(threads + " threads: " + leaver.getId() + " left the waitlist but holds a seat");
+                break;
+            }
+        }
+        checkSeats(courses, engine, failures, threads + " threads, after leave race");
+        
+        System.out.printf("%2d threads: %,9.0f registrations/s  %,9.0f drops+promotions/s  (%d waitlisted)%n",
+            threads, registrations / (registerNanos / 1e9), drops / (dropNanos / 1e9), waitlisted.get());
+    }
+    
+    private static void checkSeats(CourseCatalog courses, EnrollmentEngine engine, List<String> failures, String when) {
+        for (Course course : courses.getAll()) {
+            EnrollmentEngine.Seats seats = engine.getSeats(course);
+            int rostered = courses.getEnrollmentCount(course.getCode());
+            if (seats.taken() != rostered) {
+                failures.add(when + ": " + course.getCode() + " counts " + seats.taken() + " seats for " + rostered + " students");
+            }
+            if (rostered > course.getCapacity()) {
+                failures.add(when + ": " + course.getCode() + " oversold, " + rostered + " of " + course.getCapacity());
+            }
+            if (seats.waitlisted() > 0 && rostered < course.getCapacity()) {
+                failures.add(when + ": " + course.getCode() + " has free seats and " + seats.waitlisted() + " waiting");
+            }
+        }
+    }
+    
+    private static long runThreads(int threads, Runnable work) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                work.run();
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        return elapsed;
+    }
+}
@@ -0,0 +1,53 @@
+package sms;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Search-as-you-type queries against the student search index: a selective ID or
+// number fragment, a two-word query, and a one-letter prefix that matches almost
+// everyone and only has to fill the result limit
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class SearchBenchmark {
+    private static final int LIMIT = 500;
+    
+    @State(Scope.Benchmark)
+    public static class Index {
+        StudentSearchIndex index;
+        String[] fragments;
+        String[] twoWords;
+        
+        @Setup(Level.Trial)
+        public void setUp(Dataset data) {
+            index = new StudentSearchIndex(data.students);
+            fragments = new String[Dataset.PROBES];
+            twoWords = new String[Dataset.PROBES];
+            for (int i = 0; i < fragments.length; i++) {
+                // "S0012345" -> "2345"
+                String id = data.probeStudents[i].getId();
+                fragments[i] = id.substring(id.length() - 4);
+                // "Mary Smith" -> "smith 2345"
+                String name = data.probeStudents[i].getName();
+                twoWords[i] = name.substring(name.lastIndexOf(' ') + 1).toLowerCase() + " " + fragments[i];
+            }
+        }
+    }
+    
+    @Benchmark
+    public int fragment(Index index, Dataset.Cursor cursor) {
+        return index.index.search(index.fragments[cursor.next()], LIMIT).length;
+    }
+    
+    @Benchmark
+    public int twoWords(Index index, Dataset.Cursor cursor) {
+        return index.index.search(index.twoWords[cursor.next()], LIMIT).length;
+    }
+    
+    @Benchmark
+    public int shortPrefix(Index index) {
+        return index.index.search("s", LIMIT).length;
+    }
+}
@@ -0,0 +1,86 @@
+package sms;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Compares the columnar snapshot against plain Java serialization of the same ArrayList<Student>.
+// Usage: java -cp benchmarks.jar sms.SnapshotBenchmark [studentCount]
+public class SnapshotBenchmark {
+    private static final String[] MAJORS = {"Computer Science", "Mathematics", "Physics", "Chemistry", "Biology"};
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Random random = new Random(42);
+        
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            courses.add(new Course("C" + i, "Course " + i));
+        }
+        ArrayList<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student(String.format("S%07d", i), "Student " + i,
+                "student" + i + "@email.com", MAJORS[random.nextInt(MAJORS.length)]);
+            Map<String, String> grades = new HashMap<>();
+            for (int c = 0; c < 4; c++) {
+                String code = courses.get(random.nextInt(courses.size())).getCode();
+                student.enrollInCourse(code);
+                if (random.nextBoolean()) {
+                    grades.put(code, GRADES[random.nextInt(GRADES.length)]);
+                }
+            }
+            student.setGrades(grades);
+            students.add(student);
+        }
+        
+        Path dir = Files.createTempDirectory("snapshot-bench");
+        Path columnar = dir.resolve("snapshot.dat");
+        Path serialized = dir.resolve("students.ser");
+        
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            ColumnarSnapshot.write(columnar, courses, students, 0);
+            long columnarWrite = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            ColumnarSnapshot snapshot = ColumnarSnapshot.open(columnar);
+            Object[] firstPage = new Object[Math.min(256, snapshot.size())];
+            snapshot.fetch(0, firstPage.length, firstPage);
+            long columnarFirstPage = System.nanoTime() - start;
+            List<Student> loaded = new ArrayList<>(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                loaded.add(snapshot.readStudent(i));
+            }
+            long columnarLoad = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(serialized), 1 << 16))) {
+                out.writeObject(students);
+            }
+            long javaWrite = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            Object deserialized;
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(Files.newInputStream(serialized), 1 << 16))) {
+                deserialized = in.readObject();
+            }
+            long javaLoad = System.nanoTime() - start;
+            
+            System.out.printf("round %d: %d students%n", round, studentCount);
+            System.out.printf("  columnar  write %6d ms  first page %6.2f ms  full load %6d ms  size %,d bytes%n",
+                columnarWrite / 1_000_000, columnarFirstPage / 1e6, columnarLoad / 1_000_000, Files.size(columnar));
+            System.out.printf("  java ser  write %6d ms  full load %6d ms  size %,d bytes%n",
+                javaWrite / 1_000_000, javaLoad / 1_000_000, Files.size(serialized));
+            if (loaded.size() != ((List<?>) deserialized).size()) {
+                throw new IllegalStateException("Loaded student counts differ");
+            }
+        }
+        
+        Files.delete(columnar);
+        Files.delete(serialized);
+        Files.delete(dir);
+    }
+}
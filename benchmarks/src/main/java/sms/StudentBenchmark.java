@@ -0,0 +1,39 @@
+package sms;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Read paths on a single student
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class StudentBenchmark {
+    // Big enough for every probe student, so after warm-up each lookup is a hit
+    @State(Scope.Benchmark)
+    public static class DetailCache {
+        StudentDetailCache cache;
+        
+        @Setup(Level.Trial)
+        public void setUp(Dataset data) {
+            cache = new StudentDetailCache(data.students, Dataset.PROBES);
+        }
+    }
+    
+    @Benchmark
+    public boolean isEnrolledIn(Dataset data, Dataset.Cursor cursor) {
+        int i = cursor.next();
+        return data.probeStudents[i].isEnrolledIn(data.probeCourses[i]);
+    }
+    
+    @Benchmark
+    public String getDetailedInfo(Dataset data, Dataset.Cursor cursor) {
+        return data.probeStudents[cursor.next()].getDetailedInfo();
+    }
+    
+    @Benchmark
+    public String cachedDetailedInfo(Dataset data, DetailCache cache, Dataset.Cursor cursor) {
+        return cache.cache.getDetailedInfo(data.probeStudents[cursor.next()]);
+    }
+}
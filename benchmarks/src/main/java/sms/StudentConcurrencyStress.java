@@ -0,0 +1,125 @@
+package sms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Stress test for the Student concurrency model: enrollment threads and grade-saving
+// threads hammer the same students while readers check that every state they see is
+// whole. Exits with status 1 if an invariant breaks.
+// Usage: java -cp benchmarks.jar sms.StudentConcurrencyStress [seconds]
+public class StudentConcurrencyStress {
+    private static final int STUDENTS = 200;
+    private static final int COURSES = 50;
+    private static final String[] GRADES = {"A", "B", "C", "D", "F"};
+    
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        CourseCatalog courses = new CourseCatalog();
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course("C" + i, "Course " + i));
+        }
+        StudentRepository students = new StudentRepository(courses);
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student("S" + i, "Student " + i, "s" + i + "@email.com", "Physics"));
+        }
+        
+        AtomicLong enrollEvents = new AtomicLong();
+        AtomicLong gradeEvents = new AtomicLong();
+        students.addListener(new StudentRepositoryListener() {
+            @Override
+            public void studentEnrolled(Student student, String courseCode) {
+                enrollEvents.incrementAndGet();
+            }
+            
+            @Override
+            public void gradesChanged(Student student) {
+                gradeEvents.incrementAndGet();
+            }
+        });
+        
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong enrollments = new AtomicLong();
+        AtomicLong gradeSaves = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        Set<String> attempted = ConcurrentHashMap.newKeySet();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(3 * threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Student student = students.get(random.nextInt(STUDENTS));
+                    String course = "C" + random.nextInt(COURSES);
+                    student.enrollInCourse(course);
+                    attempted.add(student.getId() + "/" + course);
+                    enrollments.incrementAndGet();
+                }
+            });
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Student student = students.get(random.nextInt(STUDENTS));
+                    // Grades are only given for courses the student is enrolled in
+                    Map<String, String> grades = new HashMap<>();
+                    for (String course : student.getEnrolledCourses()) {
+                        grades.put(course, GRADES[random.nextInt(GRADES.length)]);
+                    }
+                    student.setGrades(grades);
+                    gradeSaves.incrementAndGet();
+                }
+            });
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Student student = students.get(random.nextInt(STUDENTS));
+                    Student.State state = student.getState();
+                    // Enrollments are never removed, so a whole state can't grade a course it lacks
+                    if (!state.enrolledCourses().containsAll(state.grades().keySet())) {
+                        failures.add("Torn state for " + student.getId() + ": " + state);
+                    }
+                    student.getDetailedInfo();
+                    reads.incrementAndGet();
+                }
+            });
+        }
+        
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        pool.shutdown();
+        if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+            failures.add("Workers did not stop");
+        }
+        
+        long enrolled = 0;
+        for (Student student : students.getAll()) {
+            enrolled += student.getEnrolledCourses().size();
+        }
+        long rostered = 0;
+        for (Course course : courses.getAll()) {
+            rostered += courses.getEnrollmentCount(course.getCode());
+        }
+        if (enrolled != attempted.size()) {
+            failures.add("Lost enrollments: " + enrolled + " stored, " + attempted.size() + " made");
+        }
+        if (rostered != enrolled) {
+            failures.add("Roster index out of sync: " + rostered + " rostered, " + enrolled + " enrolled");
+        }
+        if (enrollEvents.get() != enrolled) {
+            failures.add("Enrollment events: " + enrollEvents.get() + " for " + enrolled + " enrollments");
+        }
+        if (gradeEvents.get() != gradeSaves.get()) {
+            failures.add("Grade events: " + gradeEvents.get() + " for " + gradeSaves.get() + " saves");
+        }
+        
+        System.out.printf("%d s, %d threads: %,d enrollment calls, %,d grade saves, %,d reads%n",
+            seconds, 3 * threads, enrollments.get(), gradeSaves.get(), reads.get());
+        if (!failures.isEmpty()) {
+            failures.stream().limit(10).forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
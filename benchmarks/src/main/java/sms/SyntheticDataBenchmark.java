@@ -0,0 +1,83 @@
+package sms;
+
+import java.util.*;
+
+// Generation throughput of SyntheticDataset with one thread and with every core, and
+// the checks that make it usable as shared test data: the model is identical for any
+// number of threads, and the partitions of a cluster add up to exactly the full model.
+// Also prints the shape of the data: the busiest rosters and some per-course grade
+// distributions. Exits with status 1 if a check fails.
+// Usage: java -Xmx4g -cp benchmarks.jar sms.SyntheticDataBenchmark [students] [courses] [partitions]
+public class SyntheticDataBenchmark {
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int partitionCount = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        SyntheticDataset dataset = new SyntheticDataset(studentCount, courseCount, SyntheticDataset.DEFAULT_SEED);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("dataset %s, %d cores%n", dataset, cores);
+        
+        List<String> failures = new ArrayList<>();
+        long expected = 0;
+        for (int parallelism : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+            CourseCatalog courses = new CourseCatalog();
+            StudentRepository students = new StudentRepository(courses);
+            long start = System.nanoTime();
+            dataset.generate(courses, students, null, parallelism);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%2d thread(s): %,d students in %d ms, %,.0f students/s%n", parallelism,
+                students.size(), elapsed / 1_000_000, students.size() / (elapsed / 1e9));
+            long digest = digest(students.getAll());
+            if (parallelism == 1) {
+                expected = digest;
+                describe(courses, students);
+            } else if (digest != expected) {
+                failures.add(parallelism + " threads generated a different model than 1 thread");
+            }
+        }
+        
+        List<Student> union = new ArrayList<>();
+        for (int p = 0; p < partitionCount; p++) {
+            CourseCatalog courses = new CourseCatalog();
+            StudentRepository students = new StudentRepository(courses);
+            dataset.generate(courses, students, new Partition(p, partitionCount));
+            union.addAll(students.getAll());
+        }
+        union.sort(Comparator.comparing(Student::getId));
+        if (union.size() != studentCount || digest(union) != expected) {
+            failures.add(partitionCount + " partitions hold " + union.size() + " students that do not add up to the model");
+        }
+        
+        if (!failures.isEmpty()) {
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+    
+    // Order-sensitive hash of every student's ID and full state
+    private static long digest(List<Student> students) {
+        long digest = 17;
+        for (Student student : students) {
+            digest = 31 * digest + student.getId().hashCode();
+            digest = 31 * digest + student.getState().hashCode();
+        }
+        return digest;
+    }
+    
+    private static void describe(CourseCatalog courses, StudentRepository students) {
+        List<Course> byRoster = new ArrayList<>(courses.getAll());
+        byRoster.sort(Comparator.comparingInt((Course course) -> courses.getEnrollmentCount(course.getCode())).reversed());
+        GradeAnalytics analytics = new GradeAnalytics(students);
+        System.out.printf("%-10s %9s %9s  %s%n", "course", "enrolled", "capacity", "grades A/B/C/D/F");
+        for (Course course : byRoster.subList(0, Math.min(5, byRoster.size()))) {
+            Map<String, Integer> distribution = analytics.getCourseSummary(course.getCode()).distribution();
+            System.out.printf("%-10s %,9d %,9d  %d/%d/%d/%d/%d%n", course.getCode(),
+                courses.getEnrollmentCount(course.getCode()), course.getCapacity(), distribution.get("A"),
+                distribution.get("B"), distribution.get("C"), distribution.get("D"), distribution.get("F"));
+        }
+        Course quietest = byRoster.get(byRoster.size() - 1);
+        System.out.printf("quietest course %s: %,d enrolled%n", quietest.getCode(),
+            courses.getEnrollmentCount(quietest.getCode()));
+    }
+}
@@ -0,0 +1,34 @@
+package sms;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// StudentTableModel.getValueAt while scrolling (consecutive rows, mostly cached pages)
+// and when jumping around (mostly page misses)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class TableModelBenchmark {
+    private StudentTableModel model;
+    private int row;
+    
+    @Setup(Level.Trial)
+    public void createModel(Dataset data) {
+        model = new StudentTableModel(data.students);
+    }
+    
+    @Benchmark
+    public Object getValueAtScrolling() {
+        row = row + 1 == model.getRowCount() ? 0 : row + 1;
+        return model.getValueAt(row, row & 3);
+    }
+    
+    @Benchmark
+    public Object getValueAtRandom(Dataset.Cursor cursor) {
+        int i = cursor.next();
+        return model.getValueAt((int) ((i * 2654435761L) % model.getRowCount()), i & 3);
+    }
+}
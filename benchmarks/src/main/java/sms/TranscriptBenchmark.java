@@ -0,0 +1,37 @@
+package sms;
+
+import java.nio.file.*;
+
+// Transcript throughput with one worker and with every core, printing heap use after each run.
+// Usage: java -Xmx512m -cp benchmarks.jar sms.TranscriptBenchmark [studentCount]
+public class TranscriptBenchmark {
+    public static void main(String[] args) throws Exception {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        CourseCatalog courses = new CourseCatalog();
+        StudentRepository students = new StudentRepository(courses);
+        new SyntheticDataset(studentCount, 200, SyntheticDataset.DEFAULT_SEED).generate(courses, students, null);
+        
+        Path dir = Files.createTempDirectory("transcript-bench");
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int round = 0; round < 3; round++) {
+            for (int parallelism : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+                TranscriptGenerator.Result result = new TranscriptGenerator(students, parallelism).generate(dir, null);
+                System.gc();
+                Runtime runtime = Runtime.getRuntime();
+                System.out.printf("round %d, %2d worker(s): %,d transcripts in %d files, %,d bytes, %6d ms, "
+                        + "%,.0f transcripts/s, %.1f MB/s, heap used %d MB of %d MB%n",
+                    round, parallelism, result.transcripts(), result.files(), result.bytes(),
+                    result.elapsedNanos() / 1_000_000, result.transcriptsPerSecond(),
+                    result.bytes() / (result.elapsedNanos() / 1e9) / (1 << 20),
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20);
+            }
+        }
+        
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}